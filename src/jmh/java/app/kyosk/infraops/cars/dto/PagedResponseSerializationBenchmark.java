@@ -0,0 +1,89 @@
+package app.kyosk.infraops.cars.dto;
+
+import app.kyosk.infraops.cars.codec.CarBrandEncodings;
+import app.kyosk.infraops.cars.codec.ColumnarPageHttpMessageConverter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Jackson serialization of a list response, configured as Spring Boot configures its mapper
+ * (java.time module, ISO dates), in each encoding a client can negotiate. The gc profiler's
+ * allocation rate shows what the shared buffer pool saves; the result length is the payload size.
+ */
+@State(Scope.Benchmark)
+public class PagedResponseSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"json", "cbor", "smile", "columnar"})
+    public String encoding;
+
+    private ObjectWriter writer;
+    private ColumnarPageHttpMessageConverter columnarConverter;
+    private PagedResponse<CarBrandDTO> response;
+
+    @Setup
+    public void setUp() {
+        JsonFactory factory = switch (encoding) {
+            case "cbor" -> CarBrandEncodings.CBOR_FACTORY;
+            case "smile" -> SmileFactory.builder().recyclerPool(CarBrandEncodings.BUFFER_POOL).build();
+            default -> JsonFactory.builder().recyclerPool(CarBrandEncodings.BUFFER_POOL).build();
+        };
+        ObjectMapper objectMapper = new ObjectMapper(factory)
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructParametricType(PagedResponse.class, CarBrandDTO.class));
+        columnarConverter = encoding.equals("columnar") ? new ColumnarPageHttpMessageConverter(objectMapper) : null;
+        List<CarBrandDTO> content = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.of(2025, 1, 11, 10, 42, 7, 123_456_000);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new CarBrandDTO(UUID.randomUUID(), "Brand " + i, "Japan", 1900 + i, now, now, 0L));
+        }
+        response = PagedResponse.from(new PageImpl<>(content, PageRequest.of(5, pageSize), 10_000),
+                "http://localhost:8080/api/v1/car-brands");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        if (columnarConverter == null) {
+            return writer.writeValueAsBytes(response);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        columnarConverter.write(response, CarBrandEncodings.COLUMNAR_CBOR, new HttpOutputMessage() {
+            private final HttpHeaders headers = new HttpHeaders();
+
+            @Override
+            public OutputStream getBody() {
+                return out;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,45 @@
+package app.kyosk.infraops.cars.services.impl;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.entity.CarBrand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Entity/DTO copies done for every written brand
+@State(Scope.Benchmark)
+public class CarBrandMappingBenchmark {
+
+    private CarBrand entity;
+    private CarBrandDTO dto;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 11, 10, 42);
+        entity = CarBrand.builder()
+                .id(1L)
+                .uuid(UUID.randomUUID())
+                .name("Toyota")
+                .countryOfOrigin("Japan")
+                .foundedYear(1937)
+                .createdAt(now)
+                .updatedAt(now)
+                .version(0L)
+                .build();
+        dto = CarBrandServiceImpl.mapToDTO(entity);
+    }
+
+    @Benchmark
+    public CarBrandDTO mapToDTO() {
+        return CarBrandServiceImpl.mapToDTO(entity);
+    }
+
+    @Benchmark
+    public CarBrand mapToEntity() {
+        return CarBrandServiceImpl.mapToEntity(dto);
+    }
+}
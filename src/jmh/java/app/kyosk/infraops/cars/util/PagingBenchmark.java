@@ -0,0 +1,47 @@
+package app.kyosk.infraops.cars.util;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cost of the paging envelope built on every list request: links and metadata for a page in the
+ * middle of the catalog, so that every link is present.
+ */
+@State(Scope.Benchmark)
+public class PagingBenchmark {
+
+    private static final String BASE_URL = "http://localhost:8080/api/v1/car-brands";
+
+    private Page<CarBrandDTO> page;
+
+    @Setup
+    public void setUp() {
+        List<CarBrandDTO> content = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.of(2025, 1, 11, 10, 42);
+        for (int i = 0; i < 20; i++) {
+            content.add(new CarBrandDTO(UUID.randomUUID(), "Brand " + i, "Japan", 1900 + i, now, now, 0L));
+        }
+        page = new PageImpl<>(content, PageRequest.of(5, 20), 1_000);
+    }
+
+    @Benchmark
+    public PageLinks pageLinks() {
+        return PageLinks.from(page, BASE_URL);
+    }
+
+    @Benchmark
+    public PageMetadata pageMetadata() {
+        return PageMetadata.from(page);
+    }
+}
@@ -0,0 +1,248 @@
+package app.kyosk.infraops.cars.loadtest;
+
+import app.kyosk.infraops.InfraopsApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the application on an embedded (or the configured) Postgres, seeds it and drives a mixed
+ * list/get/create/update/delete workload against {@code /api/v1/car-brands} at a fixed request rate
+ * with a fixed number of workers. Latency is measured from the time a request was scheduled to
+ * start, so requests queued behind a slow one count as slow too. Run with {@code ./gradlew loadTest};
+ * {@code loadTestCompare} compares the report with a baseline recorded on the same machine by
+ * {@code loadTestSaveBaseline}, when asked to.
+ */
+public final class CarBrandLoadTest {
+
+    private static final String SEED_NAME_PREFIX = "Load Test Brand ";
+    private static final String[] COUNTRIES = {"Japan", "Germany", "United States", "Italy", "Kenya"};
+    private static final int PAGE_SIZE = 20;
+    // List requests spread over the first pages, which are also the ones clients read most
+    private static final int MAX_LIST_PAGE = 100;
+
+    private final LoadTestSettings settings;
+    private final String baseUrl;
+    private final List<Brand> seeded;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    // Brands created by the workload, which are the only ones it deletes so the table size stays level
+    private final ConcurrentLinkedQueue<UUID> created = new ConcurrentLinkedQueue<>();
+    private final LatencyRecorder[] recorders = new LatencyRecorder[Operation.values().length];
+
+    private CarBrandLoadTest(LoadTestSettings settings, int port, List<Brand> seeded) {
+        this.settings = settings;
+        this.baseUrl = "http://localhost:" + port + "/api/v1/car-brands";
+        this.seeded = seeded;
+        for (Operation operation : Operation.values()) {
+            recorders[operation.ordinal()] = new LatencyRecorder();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        EmbeddedPostgres postgres = settings.jdbcUrl() == null ? EmbeddedPostgres.start() : null;
+        String jdbcUrl = postgres != null ? postgres.getJdbcUrl("postgres", "postgres") : settings.jdbcUrl();
+        try (ConfigurableApplicationContext context = start(jdbcUrl, settings, args)) {
+            List<Brand> seeded = seed(context.getBean(JdbcTemplate.class), settings.rows());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            System.out.printf("Seeded %d car brands, running %s at %d requests/s with %d workers%n",
+                    seeded.size(), settings.duration(), settings.rate(), settings.concurrency());
+
+            Map<String, Object> report = new CarBrandLoadTest(settings, port, seeded).run();
+
+            Files.createDirectories(settings.report().toAbsolutePath().getParent());
+            context.getBean(ObjectMapper.class).writerWithDefaultPrettyPrinter()
+                    .writeValue(settings.report().toFile(), report);
+            print(report);
+            System.out.println("Report written to " + settings.report().toAbsolutePath());
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String jdbcUrl, LoadTestSettings settings, String[] args) {
+        SpringApplication application = new SpringApplication(InfraopsApplication.class);
+        application.setDefaultProperties(Map.of(
+                "spring.datasource.url", jdbcUrl,
+                "spring.datasource.username", settings.username(),
+                "spring.datasource.password", settings.password(),
+                "server.port", "0",
+                "spring.main.banner-mode", "off",
+                "logging.level.root", "WARN"));
+        return application.run(args);
+    }
+
+    private static List<Brand> seed(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update("""
+                INSERT INTO car_brand (name, country_of_origin, founded_year)
+                SELECT ? || g, (?::text[])[1 + g % ?], 1850 + g % 170
+                FROM generate_series(1, ?) g
+                ON CONFLICT (name) DO NOTHING
+                """, SEED_NAME_PREFIX, COUNTRIES, COUNTRIES.length, rows);
+        jdbcTemplate.execute("ANALYZE car_brand");
+        return jdbcTemplate.query("SELECT uuid, name, country_of_origin FROM car_brand WHERE name LIKE ? || '%'",
+                (rs, rowNum) -> new Brand(rs.getObject("uuid", UUID.class), rs.getString("name"),
+                        rs.getString("country_of_origin")),
+                SEED_NAME_PREFIX);
+    }
+
+    private Map<String, Object> run() throws InterruptedException {
+        long interval = 1_000_000_000L / settings.rate();
+        long start = System.nanoTime() + 100_000_000L;
+        long measureFrom = start + settings.warmup().toNanos();
+        long end = measureFrom + settings.duration().toNanos();
+        AtomicLong tickets = new AtomicLong();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            workers.add(Thread.ofVirtual().name("load-test-", i).start(() -> {
+                while (true) {
+                    long scheduled = start + tickets.getAndIncrement() * interval;
+                    if (scheduled >= end) {
+                        return;
+                    }
+                    LockSupport.parkNanos(scheduled - System.nanoTime());
+                    Operation operation = settings.mix().pick(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+                    boolean ok = execute(operation);
+                    if (scheduled >= measureFrom) {
+                        recorders[operation.ordinal()].record((System.nanoTime() - scheduled) / 1_000, !ok);
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return report(settings.duration().toNanos() / 1e9);
+    }
+
+    private boolean execute(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            return switch (operation) {
+                case LIST -> send(HttpRequest.newBuilder(URI.create(baseUrl + "?page="
+                        + random.nextInt(Math.clamp(seeded.size() / PAGE_SIZE, 1, MAX_LIST_PAGE)) + "&size=" + PAGE_SIZE))
+                        .GET()) == 200;
+                case GET -> send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomSeeded().uuid())).GET()) == 200;
+                case CREATE -> create();
+                case UPDATE -> {
+                    Brand brand = randomSeeded();
+                    yield send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + brand.uuid()))
+                            .header("Content-Type", "application/json")
+                            .PUT(json(brand.name(), brand.countryOfOrigin(), 1850 + random.nextInt(170)))) == 200;
+                }
+                case DELETE -> {
+                    UUID uuid = created.poll();
+                    // Nothing created yet to delete: a miss still runs the whole delete path
+                    yield uuid == null
+                            ? send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + UUID.randomUUID())).DELETE()) == 404
+                            : send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + uuid)).DELETE()) == 204;
+                }
+            };
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean create() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(json("Load Test Created " + UUID.randomUUID(), "Kenya", 2000))
+                .timeout(Duration.ofSeconds(30))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            return false;
+        }
+        uuidFrom(response.body()).ifPresent(created::add);
+        return true;
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    private Brand randomSeeded() {
+        return seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+    }
+
+    private static HttpRequest.BodyPublisher json(String name, String countryOfOrigin, int foundedYear) {
+        return HttpRequest.BodyPublishers.ofString("{\"name\":\"" + name + "\",\"countryOfOrigin\":\""
+                + countryOfOrigin + "\",\"foundedYear\":" + foundedYear + "}");
+    }
+
+    // The response is a flat JSON object, finding the field is cheaper than binding it
+    private static Optional<UUID> uuidFrom(String body) {
+        int field = body.indexOf("\"uuid\":\"");
+        return field < 0 ? Optional.empty()
+                : Optional.of(UUID.fromString(body.substring(field + 8, body.indexOf('"', field + 8))));
+    }
+
+    private Map<String, Object> report(double seconds) {
+        LatencyRecorder total = new LatencyRecorder();
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LatencyRecorder recorder = recorders[operation.ordinal()];
+            operations.put(operation.key(), recorder.summary(seconds));
+            recorder.addTo(total);
+        }
+        Map<String, Object> runSettings = new LinkedHashMap<>();
+        runSettings.put("rows", seeded.size());
+        runSettings.put("concurrency", settings.concurrency());
+        runSettings.put("rate", settings.rate());
+        runSettings.put("durationSeconds", settings.duration().toSeconds());
+        runSettings.put("warmupSeconds", settings.warmup().toSeconds());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", runSettings);
+        report.put("total", total.summary(seconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> report) {
+        System.out.printf("%-8s %9s %8s %10s %9s %9s %9s %9s%n",
+                "", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        Map<String, Object> rows = new LinkedHashMap<>((Map<String, Object>) report.get("operations"));
+        rows.put("total", report.get("total"));
+        rows.forEach((name, value) -> {
+            Map<String, Object> summary = (Map<String, Object>) value;
+            System.out.printf("%-8s %9d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name,
+                    summary.get("requests"), summary.get("errors"), summary.get("throughput"),
+                    summary.get("p50Ms"), summary.get("p95Ms"), summary.get("p99Ms"), summary.get("maxMs"));
+        });
+    }
+
+    private record Brand(UUID uuid, String name, String countryOfOrigin) {
+    }
+}
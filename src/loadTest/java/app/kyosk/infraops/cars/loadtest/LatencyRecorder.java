@@ -0,0 +1,60 @@
+package app.kyosk.infraops.cars.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies and errors of one operation. Every sample is kept, a run of a few minutes at a few
+ * hundred requests per second is well within memory and exact percentiles beat bucketed ones when
+ * comparing against a baseline.
+ */
+final class LatencyRecorder {
+
+    private long[] micros = new long[1_024];
+    private int count;
+    private long errors;
+
+    synchronized void record(long latencyMicros, boolean error) {
+        if (count == micros.length) {
+            micros = Arrays.copyOf(micros, count * 2);
+        }
+        micros[count++] = latencyMicros;
+        if (error) {
+            errors++;
+        }
+    }
+
+    synchronized void addTo(LatencyRecorder total) {
+        for (int i = 0; i < count; i++) {
+            total.record(micros[i], false);
+        }
+        synchronized (total) {
+            total.errors += errors;
+        }
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(micros, count);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("errors", errors);
+        summary.put("errorRate", count == 0 ? 0.0 : (double) errors / count);
+        summary.put("throughput", count / seconds);
+        summary.put("p50Ms", percentile(sorted, 0.50));
+        summary.put("p95Ms", percentile(sorted, 0.95));
+        summary.put("p99Ms", percentile(sorted, 0.99));
+        summary.put("maxMs", count == 0 ? 0.0 : sorted[count - 1] / 1_000.0);
+        return summary;
+    }
+
+    // Nearest rank, so a reported percentile is always a latency that was actually observed
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1_000.0;
+    }
+}
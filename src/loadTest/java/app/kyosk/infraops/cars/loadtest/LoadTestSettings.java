@@ -0,0 +1,73 @@
+package app.kyosk.infraops.cars.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Knobs of a load test run, read from {@code loadTest.*} system properties (the Gradle task passes
+ * its {@code -PloadTest...} project properties through). Without a JDBC URL the application runs on
+ * an embedded Postgres.
+ *
+ * @param rate requests started per second across all workers; arrivals are scheduled, not paced by
+ *             responses, so a slow server shows up as latency instead of as a lower request rate
+ */
+record LoadTestSettings(int rows, int concurrency, int rate, Duration duration, Duration warmup,
+                        Mix mix, String jdbcUrl, String username, String password, Path report) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadTest.rows", 10_000),
+                Integer.getInteger("loadTest.concurrency", 32),
+                Integer.getInteger("loadTest.rate", 400),
+                Duration.ofSeconds(Long.getLong("loadTest.duration", 60)),
+                Duration.ofSeconds(Long.getLong("loadTest.warmup", 10)),
+                Mix.parse(System.getProperty("loadTest.mix", "list=50,get=30,create=8,update=8,delete=4")),
+                blankToNull(System.getProperty("loadTest.jdbcUrl")),
+                System.getProperty("loadTest.username", "postgres"),
+                System.getProperty("loadTest.password", ""),
+                Path.of(System.getProperty("loadTest.report", "build/reports/load-test/results.json")));
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    /**
+     * Relative weights of the operations, e.g. {@code list=50,get=30,create=8,update=8,delete=4}.
+     */
+    record Mix(int[] weights, int total) {
+
+        static Mix parse(String value) {
+            int[] weights = new int[Operation.values().length];
+            for (String entry : value.split(",")) {
+                String[] pair = entry.trim().split("=");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Expected operation=weight in the mix, got: " + entry);
+                }
+                weights[Operation.from(pair[0]).ordinal()] = Integer.parseInt(pair[1].trim());
+            }
+            int total = 0;
+            for (int weight : weights) {
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Weights in the mix may not be negative: " + value);
+                }
+                total += weight;
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("The mix has to give at least one operation a weight: " + value);
+            }
+            return new Mix(weights, total);
+        }
+
+        Operation pick(int roll) {
+            int remaining = roll % total;
+            for (Operation operation : Operation.values()) {
+                remaining -= weights[operation.ordinal()];
+                if (remaining < 0) {
+                    return operation;
+                }
+            }
+            throw new IllegalStateException("Roll outside the mix: " + roll);
+        }
+    }
+}
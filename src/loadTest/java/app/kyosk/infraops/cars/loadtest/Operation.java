@@ -0,0 +1,19 @@
+package app.kyosk.infraops.cars.loadtest;
+
+import java.util.Locale;
+
+enum Operation {
+    LIST,
+    GET,
+    CREATE,
+    UPDATE,
+    DELETE;
+
+    static Operation from(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,244 @@
+package app.kyosk.infraops.cars.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Measures how long the application takes to become ready when launched cold with {@code java -jar}
+ * and when launched with the Spring AOT bean definitions plus a class data sharing archive, the way
+ * the Dockerfile's aot target runs it. The boot jar is extracted once, a training run against the same
+ * Postgres records the archive, then both modes boot {@code startup.runs} times in alternation.
+ * Time-to-ready runs from the process launch to the first healthy {@code /actuator/health}; the
+ * first request is the first page of car brands right after. Run with
+ * {@code ./gradlew startupBenchmark -PaotBuild}; {@code startupCheck} holds the result to the target.
+ */
+public final class StartupBenchmark {
+
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+    private static final String FIRST_REQUEST = "/api/v1/car-brands?page=0&size=20";
+    private static final String JAVA = ProcessHandle.current().info().command().orElse("java");
+
+    private final Path workDir;
+    private final Path archive;
+    private final List<String> datasource;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private StartupBenchmark(Path workDir, List<String> datasource) {
+        this.workDir = workDir;
+        this.archive = workDir.resolve("application.jsa");
+        this.datasource = datasource;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("startup.runs", 5);
+        Path bootJar = Path.of(System.getProperty("startup.jar"));
+        Path workDir = Path.of(System.getProperty("startup.workDir", "build/startup")).toAbsolutePath();
+        Path report = Path.of(System.getProperty("startup.report", "build/reports/startup/results.json"));
+        String configuredUrl = System.getProperty("startup.jdbcUrl");
+        EmbeddedPostgres postgres = configuredUrl == null || configuredUrl.isBlank() ? EmbeddedPostgres.start() : null;
+        try {
+            List<String> datasource = postgres != null
+                    ? datasource(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "")
+                    : datasource(configuredUrl, System.getProperty("startup.username", "postgres"),
+                    System.getProperty("startup.password", ""));
+            StartupBenchmark benchmark = new StartupBenchmark(workDir, datasource);
+            Path jar = benchmark.extract(bootJar);
+            // The training run also migrates the schema, so no measured run pays for Flyway's first migration
+            benchmark.train(jar);
+
+            Map<Mode, List<Run>> results = new EnumMap<>(Mode.class);
+            for (int i = 0; i < runs; i++) {
+                for (Mode mode : Mode.values()) {
+                    Run run = benchmark.boot(jar, mode, i);
+                    System.out.printf("%-7s run %d: ready in %.0f ms, first request %.1f ms%n",
+                            mode.key(), i + 1, run.readyMs(), run.firstRequestMs());
+                    results.computeIfAbsent(mode, m -> new ArrayList<>()).add(run);
+                }
+            }
+
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(report.toFile(), report(runs, results));
+            System.out.println("Report written to " + report.toAbsolutePath());
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static List<String> datasource(String jdbcUrl, String username, String password) {
+        return List.of("--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password);
+    }
+
+    // CDS only maps classes from plain jars on the class path, not from the nested jars of a boot jar
+    private Path extract(Path bootJar) throws IOException, InterruptedException {
+        Path destination = workDir.resolve("application");
+        Files.createDirectories(workDir);
+        Process process = new ProcessBuilder(JAVA, "-Djarmode=tools", "-jar", bootJar.toString(),
+                "extract", "--destination", destination.toString(), "--force")
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("extract.log").toFile())
+                .start();
+        awaitExit(process, "extract.log");
+        return destination.resolve(bootJar.getFileName());
+    }
+
+    private void train(Path jar) throws IOException, InterruptedException {
+        Files.deleteIfExists(archive);
+        Process process = launch(jar, List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh",
+                "-Dspring.aot.enabled=true"), "training.log", 0);
+        awaitExit(process, "training.log");
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("The training run left no CDS archive, see " + workDir.resolve("training.log"));
+        }
+    }
+
+    private Run boot(Path jar, Mode mode, int run) throws IOException, InterruptedException {
+        int port = freePort();
+        long launched = System.nanoTime();
+        Process process = launch(jar, mode.jvmArgs(archive), mode.key() + "-" + (run + 1) + ".log", port);
+        try {
+            awaitReady(process, port, launched + READY_TIMEOUT.toNanos());
+            long ready = System.nanoTime();
+            int status = send(port, FIRST_REQUEST);
+            long answered = System.nanoTime();
+            if (status != 200) {
+                throw new IllegalStateException(mode.key() + " answered the first request with " + status);
+            }
+            return new Run((ready - launched) / 1e6, (answered - ready) / 1e6);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private Process launch(Path jar, List<String> jvmArgs, String log, int port) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.addAll(datasource);
+        command.add("--server.port=" + port);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve(log).toFile())
+                .start();
+    }
+
+    private void awaitReady(Process process, int port, long deadline) throws IOException, InterruptedException {
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue() + " before it was ready");
+            }
+            try {
+                if (send(port, "/actuator/health") == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("The application was not ready within " + READY_TIMEOUT);
+    }
+
+    private void awaitExit(Process process, String log) throws InterruptedException {
+        if (!process.waitFor(READY_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+            throw new IllegalStateException("Timed out, see " + workDir.resolve(log));
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException("Exited with " + process.exitValue() + ", see " + workDir.resolve(log));
+        }
+    }
+
+    private int send(int port, String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                        .timeout(Duration.ofSeconds(30))
+                        .GET()
+                        .build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, Object> report(int runs, Map<Mode, List<Run>> results) {
+        Map<String, Object> modes = new LinkedHashMap<>();
+        results.forEach((mode, modeRuns) -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("readyMs", median(modeRuns, Run::readyMs));
+            summary.put("firstRequestMs", median(modeRuns, Run::firstRequestMs));
+            summary.put("runs", modeRuns);
+            modes.put(mode.key(), summary);
+        });
+        List<Run> cold = results.get(Mode.COLD);
+        List<Run> fast = results.get(Mode.AOT_CDS);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", Map.of("runs", runs));
+        report.put("modes", modes);
+        report.put("readyReduction", 1 - median(fast, Run::readyMs) / median(cold, Run::readyMs));
+        report.put("firstRequestReduction", 1 - median(fast, Run::firstRequestMs) / median(cold, Run::firstRequestMs));
+        return report;
+    }
+
+    private static double median(List<Run> runs, ToDoubleFunction<Run> metric) {
+        double[] values = runs.stream().mapToDouble(metric).sorted().toArray();
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    private enum Mode {
+        // The same jar as the plain build: without spring.aot.enabled the generated initializers go unused
+        COLD("cold"),
+        AOT_CDS("aotCds");
+
+        private final String key;
+
+        Mode(String key) {
+            this.key = key;
+        }
+
+        String key() {
+            return key;
+        }
+
+        List<String> jvmArgs(Path archive) {
+            return this == COLD ? List.of()
+                    : List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true");
+        }
+    }
+
+    record Run(double readyMs, double firstRequestMs) {
+    }
+}
@@ -2,8 +2,10 @@ package app.kyosk.infraops;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class InfraopsApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,87 @@
+package app.kyosk.infraops.cars.cache;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeFeedReset;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded read-through cache of single car brands by UUID. Local writes invalidate
+ * entries directly, writes on other replicas arrive as {@link CarBrandChange} events. Hit, miss and
+ * eviction counters are published as the {@code cache.*} meters tagged {@code cache=car-brands}.
+ */
+@Component
+public class CarBrandCache implements MeterBinder {
+
+    static final String NAME = "car-brands";
+
+    private final Cache<UUID, CarBrandDTO> cache;
+
+    public CarBrandCache(CarBrandProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getMaximumSize())
+                .expireAfterWrite(properties.getCache().getTtl())
+                .recordStats()
+                .build();
+    }
+
+    public Optional<CarBrandDTO> get(UUID uuid, Function<UUID, Optional<CarBrandDTO>> loader) {
+        // Misses are not cached, Caffeine drops the null returned for an unknown UUID
+        return Optional.ofNullable(cache.get(uuid, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Looks up all {@code uuids}, loading the ones not cached with a single call to {@code loader}.
+     * UUIDs the loader does not return are missing from the result and, as with {@link #get}, not cached.
+     */
+    public Map<UUID, CarBrandDTO> getAll(Collection<UUID> uuids, Function<Set<UUID>, Map<UUID, CarBrandDTO>> loader) {
+        return cache.getAll(uuids, missing -> loader.apply(Set.copyOf(missing)));
+    }
+
+    public Optional<CarBrandDTO> getIfPresent(UUID uuid) {
+        return Optional.ofNullable(cache.getIfPresent(uuid));
+    }
+
+    public void invalidate(UUID uuid) {
+        cache.invalidate(uuid);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(CarBrandChange change) {
+        cache.invalidate(change.uuid());
+    }
+
+    @EventListener
+    public void onFeedReset(CarBrandChangeFeedReset reset) {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+}
@@ -0,0 +1,152 @@
+package app.kyosk.infraops.cars.cache;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeFeedReset;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The first offset pages of the car brand listing, kept as the JSON bytes (and their gzip) that were
+ * sent the first time. A hit is answered without touching the database or Jackson.
+ * <p>
+ * Every {@link CarBrandChange} bumps a version counter and drops all pages, since any write can
+ * shift every page. A page is stored with the version read before its query ran, so a page rendered
+ * concurrently with a write is already stale when it lands and is never served.
+ */
+@Component
+public class CarBrandPageCache implements MeterBinder {
+
+    static final String NAME = "car-brand-pages";
+
+    private final Cache<Key, Entry> cache;
+    private final AtomicLong version = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final CarBrandProperties.PageCache settings;
+
+    public CarBrandPageCache(CarBrandProperties properties, ObjectMapper objectMapper) {
+        this.settings = properties.getPageCache();
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfterWrite(settings.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The request URL is part of the key because the links are rendered from it, it also covers the
+     * {@code links} selection and any parameter that does not change the page itself.
+     */
+    public record Key(String requestUrl, int page, int size, Sort sort) {
+
+        public static Key of(String requestUrl, Pageable pageable) {
+            return new Key(requestUrl, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+        }
+    }
+
+    /**
+     * A rendered page. {@code gzip} is {@code null} when the body was too small to be worth compressing.
+     */
+    public record Entry(long version, String eTag, byte[] json, byte[] gzip) {
+    }
+
+    public boolean isCacheable(Pageable pageable) {
+        return settings.isEnabled() && pageable.isPaged() && pageable.getPageNumber() < settings.getHotPages();
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public Optional<Entry> get(Key key) {
+        Entry entry = cache.getIfPresent(key);
+        return entry != null && entry.version() == version.get() ? Optional.of(entry) : Optional.empty();
+    }
+
+    /**
+     * Serializes the body and stores it. Pass the {@link #version()} read before the page was queried.
+     */
+    public Entry put(Key key, long version, String eTag, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize car brand page " + key, e);
+        }
+        Entry entry = new Entry(version, eTag, json, json.length >= settings.getGzipMinSize() ? gzip(json) : null);
+        if (version == this.version.get()) {
+            cache.put(key, entry);
+        }
+        return entry;
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(CarBrandChange change) {
+        invalidateAll();
+    }
+
+    @EventListener
+    public void onFeedReset(CarBrandChangeFeedReset reset) {
+        invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+
+    // An explicit gzip entry wins over *, either one with q=0 refuses the coding
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0{0,3})?");
+            if (name.equals("gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            // Only a byte array is written to
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
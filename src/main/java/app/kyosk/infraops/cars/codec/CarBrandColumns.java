@@ -0,0 +1,33 @@
+package app.kyosk.infraops.cars.codec;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.repository.CarBrandField;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lays brands out column by column: one array per selected property, in declaration order, whose
+ * i-th entry belongs to the i-th brand. Property names are written once per batch instead of once
+ * per row, and each array holds values of a single type.
+ */
+public final class CarBrandColumns {
+
+    private CarBrandColumns() {
+    }
+
+    public static Map<String, List<Object>> of(List<CarBrandDTO> carBrands, Set<CarBrandField> fields) {
+        Map<String, List<Object>> columns = new LinkedHashMap<>();
+        for (CarBrandField field : fields) {
+            List<Object> values = new ArrayList<>(carBrands.size());
+            for (CarBrandDTO carBrand : carBrands) {
+                values.add(field.valueOf(carBrand));
+            }
+            columns.put(field.getProperty(), values);
+        }
+        return columns;
+    }
+}
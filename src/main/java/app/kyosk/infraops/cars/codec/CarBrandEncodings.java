@@ -0,0 +1,34 @@
+package app.kyosk.infraops.cars.codec;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.core.util.RecyclerPool;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * The encodings car brands are served in besides JSON, and the buffer pool all of them encode into.
+ */
+public final class CarBrandEncodings {
+
+    /**
+     * Pages laid out column by column (see {@link CarBrandColumns}) and encoded as CBOR. Not a
+     * {@code +json} type on purpose: the JSON converter claims every one of those.
+     */
+    public static final MediaType COLUMNAR_CBOR = MediaType.valueOf("application/vnd.infraops.columnar+cbor");
+
+    // RFC 8742: CBOR items back to back, the binary counterpart of NDJSON
+    public static final MediaType CBOR_SEQ = MediaType.valueOf("application/cbor-seq");
+
+    /**
+     * Jackson's default recycler keeps its buffers in a thread local, which a virtual thread per
+     * request never reuses. This pool is shared by every mapper and factory of the application.
+     */
+    public static final RecyclerPool<BufferRecycler> BUFFER_POOL = JsonRecyclerPools.sharedConcurrentDequePool();
+
+    // Generators from this factory carry no codec, values are written to them through an ObjectWriter
+    public static final CBORFactory CBOR_FACTORY = CBORFactory.builder().recyclerPool(BUFFER_POOL).build();
+
+    private CarBrandEncodings() {
+    }
+}
@@ -0,0 +1,79 @@
+package app.kyosk.infraops.cars.codec;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandView;
+import app.kyosk.infraops.cars.dto.PagedResponse;
+import app.kyosk.infraops.cars.repository.CarBrandField;
+import app.kyosk.infraops.cars.util.PageLinks;
+import app.kyosk.infraops.cars.util.PageMetadata;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a car brand {@link PagedResponse} as {@link CarBrandEncodings#COLUMNAR_CBOR}: the same
+ * metadata and links, with the content turned into {@link CarBrandColumns}. Values are serialized
+ * by the application's mapper, so they match what the JSON and CBOR responses carry. Write only.
+ */
+public class ColumnarPageHttpMessageConverter extends AbstractHttpMessageConverter<PagedResponse<?>> {
+
+    private final ObjectWriter writer;
+
+    public ColumnarPageHttpMessageConverter(ObjectMapper objectMapper) {
+        super(CarBrandEncodings.COLUMNAR_CBOR);
+        this.writer = objectMapper.writerFor(ColumnarPage.class);
+    }
+
+    record ColumnarPage(Map<String, List<Object>> content, PageMetadata metadata, PageLinks links) {
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PagedResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected PagedResponse<?> readInternal(Class<? extends PagedResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar pages are only written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(PagedResponse<?> page, HttpOutputMessage outputMessage) throws IOException {
+        // The selection travels with the views; a page of plain DTOs has every property
+        Set<CarBrandField> fields = CarBrandField.ALL;
+        List<CarBrandDTO> carBrands = new ArrayList<>(page.content().size());
+        for (Object item : page.content()) {
+            if (item instanceof CarBrandView view) {
+                fields = view.fields();
+                carBrands.add(view.carBrand());
+            } else if (item instanceof CarBrandDTO carBrand) {
+                carBrands.add(carBrand);
+            } else {
+                throw new HttpMessageNotWritableException("Not a car brand: " + item.getClass().getName());
+            }
+        }
+        ColumnarPage columnarPage = new ColumnarPage(CarBrandColumns.of(carBrands, fields), page.metadata(), page.links());
+        try (JsonGenerator generator = CarBrandEncodings.CBOR_FACTORY.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()))) {
+            writer.writeValue(generator, columnarPage);
+        }
+    }
+}
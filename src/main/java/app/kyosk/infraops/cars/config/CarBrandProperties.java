@@ -0,0 +1,146 @@
+package app.kyosk.infraops.cars.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "infraops.car-brands")
+public class CarBrandProperties {
+
+    private Paging paging = new Paging();
+    private Cache cache = new Cache();
+    private PageCache pageCache = new PageCache();
+    private Batch batch = new Batch();
+    private Export export = new Export();
+    private CsvImport csvImport = new CsvImport();
+    private Notifications notifications = new Notifications();
+    private Bulkhead bulkhead = new Bulkhead();
+    private Search search = new Search();
+    private StatementBudget statementBudget = new StatementBudget();
+    private Generator generator = new Generator();
+    private Feed feed = new Feed();
+
+    @Getter
+    @Setter
+    public static class Paging {
+        // How long an exact row count is reused when planner statistics are not available
+        private Duration countCacheTtl = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class PageCache {
+        private boolean enabled = true;
+        // Offset pages below this number are kept serialized, deeper pages are rendered per request
+        private int hotPages = 5;
+        private long maximumSize = 1_000;
+        // Only a backstop, writes invalidate the pages straight away
+        private Duration ttl = Duration.ofMinutes(5);
+        // Smaller bodies are not worth the gzip header and the decompression on the client
+        private int gzipMinSize = 1_024;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        private int maxItems = 100_000;
+        // UUIDs resolved per lookup, the whole answer is built in memory and sent at once
+        private int maxLookupItems = 5_000;
+        // Items written and flushed per persistence context, keeps memory flat for large batches
+        private int chunkSize = 1_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+        // Rows fetched per round trip by the export cursor
+        private int fetchSize = 1_000;
+        // Brands per item of a columnar export, every item repeats the property names once
+        private int columnarBatchSize = 1_000;
+    }
+
+    @Getter
+    @Setter
+    public static class CsvImport {
+        // Rejected records listed in the response, the count always covers all of them
+        private int maxReportedRejections = 100;
+        // Imports that change more brands announce one reset instead of a change per brand
+        private int maxAnnouncedChanges = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Notifications {
+        // Broadcast writes to the other replicas over LISTEN/NOTIFY
+        private boolean enabled = true;
+        private Duration pollTimeout = Duration.ofSeconds(1);
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private boolean enabled = true;
+        // 0 sizes the bulkhead to the Hikari pool
+        private int maxConcurrentCalls = 0;
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Search {
+        private int maxResults = 50;
+        // Shorter queries only match by prefix, one typo in two letters matches nearly everything
+        private int typoMinLength = 3;
+        // Past this many brands the index is dropped and every search goes to the pg_trgm query
+        private int maxIndexedBrands = 200_000;
+        // Reloads the index when the table changed without a change event, e.g. generate-data
+        private Duration reconcileInterval = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class StatementBudget {
+        private boolean enabled = true;
+        // Throw at the statement that goes over budget instead of logging it, meant for tests
+        private boolean failOnOverrun = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Generator {
+        private long rows = 10_000_000;
+        private long seed = 42;
+        private int threads = 4;
+        private int chunkSize = 100_000;
+        // Well above the ids the application hands out, so generated rows can be added to a used database
+        private long firstId = 1_000_000_000L;
+    }
+
+    @Getter
+    @Setter
+    public static class Feed {
+        private int maxSubscribers = 10_000;
+        // Subscribers are closed after this long and resume with Last-Event-ID, which spreads reconnects out
+        private Duration subscriptionTimeout = Duration.ofMinutes(30);
+        // Keeps idle streams open through proxies and finds subscribers that went away
+        private Duration heartbeat = Duration.ofSeconds(15);
+        // Backstop for missed notifications, and the only source of events with notifications disabled
+        private Duration pollInterval = Duration.ofSeconds(5);
+        private Duration retention = Duration.ofHours(24);
+        private int batchSize = 1_000;
+        // A subscriber this far behind is closed and told to re-list on reconnect instead of being replayed to
+        private int maxPendingEvents = 10_000;
+    }
+}
@@ -0,0 +1,70 @@
+package app.kyosk.infraops.cars.config;
+
+import app.kyosk.infraops.cars.jdbc.ConnectionBulkheadDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Puts the bulkhead in front of connection acquisition and answers requests that could not get a
+ * connection in time with 503.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "infraops.car-brands.bulkhead", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConnectionBulkheadConfig implements WebMvcConfigurer {
+
+    private static final int FALLBACK_POOL_SIZE = 10;
+
+    private final CarBrandProperties properties;
+
+    // Static, and the dependencies only resolved once the data source shows up, as post-processors are created early
+    @Bean
+    public static BeanPostProcessor connectionBulkheadDataSourcePostProcessor(ObjectProvider<CarBrandProperties> properties,
+                                                                              ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionBulkheadDataSource) {
+                    return bean;
+                }
+                CarBrandProperties.Bulkhead settings = properties.getObject().getBulkhead();
+                int maxConcurrentCalls = settings.getMaxConcurrentCalls() > 0
+                        ? settings.getMaxConcurrentCalls() : poolSize(dataSource);
+                log.info("Connections are limited to {} at a time", maxConcurrentCalls);
+                return new ConnectionBulkheadDataSource(dataSource, maxConcurrentCalls, settings.getMaxWait(),
+                        registry.getObject());
+            }
+        };
+    }
+
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        // Ahead of the defaults, which would answer a wrapped SQLTransientConnectionException with 500
+        resolvers.add(0, new ConnectionUnavailableExceptionResolver(properties.getBulkhead().getMaxWait()));
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the connection pool size", e);
+        }
+        return FALLBACK_POOL_SIZE;
+    }
+}
@@ -0,0 +1,52 @@
+package app.kyosk.infraops.cars.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.IOException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+/**
+ * Answers 503 with {@code Retry-After} when a request failed because no connection was free in
+ * time, whether the bulkhead or Hikari gave up. Spring wraps the JDBC exception in its own
+ * transaction or data access exceptions, so the whole cause chain is searched.
+ */
+@Slf4j
+public class ConnectionUnavailableExceptionResolver implements HandlerExceptionResolver {
+
+    private final String retryAfter;
+
+    public ConnectionUnavailableExceptionResolver(Duration maxWait) {
+        this.retryAfter = String.valueOf(Math.max(1, maxWait.toSeconds()));
+    }
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Exception ex) {
+        if (!causedByUnavailableConnection(ex) || response.isCommitted()) {
+            return null;
+        }
+        try {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "No database connection free, retry later");
+        } catch (IOException e) {
+            log.debug("Could not send the 503 for {}", request.getRequestURI(), e);
+        }
+        return new ModelAndView();
+    }
+
+    static boolean causedByUnavailableConnection(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
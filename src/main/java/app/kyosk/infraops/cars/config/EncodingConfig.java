@@ -0,0 +1,54 @@
+package app.kyosk.infraops.cars.config;
+
+import app.kyosk.infraops.cars.codec.CarBrandEncodings;
+import app.kyosk.infraops.cars.codec.ColumnarPageHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Response encodings chosen by {@code Accept}: JSON stays the default, {@code application/cbor} and
+ * {@code application/x-jackson-smile} serve the same documents in binary, and
+ * {@link CarBrandEncodings#COLUMNAR_CBOR} serves list pages column by column. Compressing large
+ * responses is left to the server ({@code server.compression}).
+ */
+@Configuration
+@RequiredArgsConstructor
+public class EncodingConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    // Static: the mapper this configuration is constructed with is built with this customizer
+    @Bean
+    public static Jackson2ObjectMapperBuilderCustomizer sharedBufferPool() {
+        return builder -> builder.postConfigurer(mapper -> mapper.getFactory().setRecyclerPool(CarBrandEncodings.BUFFER_POOL));
+    }
+
+    // Built from Boot's builder so the binary formats get the same modules and settings as JSON
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // Last, so that a request accepting anything is still answered with JSON
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ColumnarPageHttpMessageConverter(objectMapper));
+    }
+}
@@ -0,0 +1,24 @@
+package app.kyosk.infraops.cars.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lets {@link io.micrometer.core.annotation.Timed} on the controller and the service record timers.
+ * Together with {@code http.server.requests} they split a request's latency: the service timer is
+ * database and mapping, the controller timer adds the web layer around it, and whatever
+ * {@code http.server.requests} measures beyond that is serialization and writing the response.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String CONTROLLER_TIMER = "car_brands.controller";
+    public static final String SERVICE_TIMER = "car_brands.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
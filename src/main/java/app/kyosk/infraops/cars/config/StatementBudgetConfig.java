@@ -0,0 +1,46 @@
+package app.kyosk.infraops.cars.config;
+
+import app.kyosk.infraops.cars.jdbc.StatementBudgetInterceptor;
+import app.kyosk.infraops.cars.jdbc.StatementCountingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source so statements can be counted and checks each car brand request against the
+ * {@link app.kyosk.infraops.cars.jdbc.StatementBudget} of its handler.
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "infraops.car-brands.statement-budget", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StatementBudgetConfig implements WebMvcConfigurer {
+
+    private final CarBrandProperties properties;
+    private final MeterRegistry registry;
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)
+                        ? new StatementCountingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new StatementBudgetInterceptor(this.registry,
+                        properties.getStatementBudget().isFailOnOverrun()))
+                .addPathPatterns("/api/v1/car-brands", "/api/v1/car-brands/**");
+    }
+}
@@ -1,47 +1,292 @@
 package app.kyosk.infraops.cars.controller;
 
+import app.kyosk.infraops.cars.cache.CarBrandPageCache;
+import app.kyosk.infraops.cars.config.MetricsConfig;
+import app.kyosk.infraops.cars.dto.BatchDeleteResult;
+import app.kyosk.infraops.cars.dto.BatchResult;
 import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandFilter;
+import app.kyosk.infraops.cars.dto.CarBrandPatch;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.dto.CarBrandView;
+import app.kyosk.infraops.cars.dto.ImportResult;
+import app.kyosk.infraops.cars.dto.LookupResult;
 import app.kyosk.infraops.cars.dto.PagedResponse;
+import app.kyosk.infraops.cars.export.CarBrandExporter;
+import app.kyosk.infraops.cars.export.ExportFormat;
+import app.kyosk.infraops.cars.exception.VersionConflictException;
+import app.kyosk.infraops.cars.feed.CarBrandChangeFeed;
+import app.kyosk.infraops.cars.importer.CarBrandImporter;
+import app.kyosk.infraops.cars.jdbc.StatementBudget;
+import app.kyosk.infraops.cars.repository.CarBrandField;
 import app.kyosk.infraops.cars.services.CarBrandService;
+import app.kyosk.infraops.cars.util.ETags;
+import app.kyosk.infraops.cars.util.LinkRelation;
+import app.kyosk.infraops.cars.util.PageCursor;
+import app.kyosk.infraops.cars.util.PagingMode;
+import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("api/v1/car-brands")
 @RequiredArgsConstructor
+@Timed(value = MetricsConfig.CONTROLLER_TIMER, description = "Car brand controller methods, without response serialization")
 public class CarBrandController {
     private final CarBrandService carBrandService;
+    private final CarBrandExporter carBrandExporter;
+    private final CarBrandImporter carBrandImporter;
+    private final CarBrandPageCache carBrandPageCache;
+    private final CarBrandChangeFeed carBrandChangeFeed;
 
+    // Sequence (once per allocation block), insert and notify
     @PostMapping
+    @StatementBudget(3)
     public ResponseEntity<CarBrandDTO> create(@RequestBody CarBrandDTO carBrandDTO) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(carBrandService.save(carBrandDTO));
+        CarBrandDTO created = carBrandService.save(carBrandDTO);
+        return withETag(ResponseEntity.status(HttpStatus.CREATED), created).body(created);
     }
 
+    // No budget: the lookups and inserts grow with the number of chunks, the count is still recorded
+    @PostMapping("batch")
+    public ResponseEntity<BatchResult> createOrUpdateAll(@RequestBody List<CarBrandDTO> carBrandDTOs) {
+        return ResponseEntity.ok(carBrandService.saveAll(carBrandDTOs));
+    }
+
+    @DeleteMapping("batch")
+    @StatementBudget(2)
+    public ResponseEntity<BatchDeleteResult> deleteAll(@RequestBody List<UUID> uuids) {
+        return ResponseEntity.ok(carBrandService.deleteAllByUuid(uuids));
+    }
+
+    // Cached brands cost nothing, the rest are read together with one array parameter
+    @PostMapping("lookup")
+    @StatementBudget(1)
+    public ResponseEntity<LookupResult> lookup(@RequestBody List<UUID> uuids) {
+        return ResponseEntity.ok(carBrandService.findAllByUuid(uuids));
+    }
+
+    // Staging table, analyze, validate, merge, two rejection reads and notify; COPY does not go through a statement
+    @PostMapping(value = "import", consumes = {"text/csv", "application/csv"})
+    @StatementBudget(7)
+    public ResponseEntity<ImportResult> importCsv(InputStream csv) {
+        return ResponseEntity.ok(carBrandImporter.importCsv(csv));
+    }
+
+    // Revision and page, then the count or the estimate with its fallback count. ?fields=uuid,name narrows
+    // both the select list and the JSON of every brand.
     @GetMapping
-    public ResponseEntity<PagedResponse<CarBrandDTO>> getAllPaged(Pageable pageable) {
-        return ResponseEntity.ok(PagedResponse.from(carBrandService.findAll(pageable),  ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()));
+    @StatementBudget(4)
+    public ResponseEntity<?> getAllPaged(Pageable pageable,
+                                         @RequestParam(required = false) String fields,
+                                         @RequestParam(defaultValue = "offset") String paging,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(required = false) String before,
+                                         @RequestParam(required = false) String links,
+                                         @RequestParam(required = false) String countryOfOrigin,
+                                         @RequestParam(required = false) Integer foundedYearFrom,
+                                         @RequestParam(required = false) Integer foundedYearTo,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String requestUrl = ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString();
+        PagingMode mode = after != null || before != null ? PagingMode.CURSOR : PagingMode.from(paging);
+        Set<LinkRelation> relations = LinkRelation.parse(links);
+        CarBrandFilter filter = new CarBrandFilter(countryOfOrigin, foundedYearFrom, foundedYearTo);
+        Set<CarBrandField> selected = CarBrandField.parse(fields);
+        // The cached bytes are JSON, other encodings are rendered per request
+        if (mode == PagingMode.OFFSET && carBrandPageCache.isCacheable(pageable) && prefersJson(accept)) {
+            return cachedPage(pageable, filter, selected, requestUrl, relations, ifNoneMatch, acceptEncoding);
+        }
+        // Malformed cursors are rejected before anything is read
+        PageCursor afterCursor = PageCursor.decode(after);
+        PageCursor beforeCursor = PageCursor.decode(before);
+        // Read before the page so a concurrent write can only make the tag older than the content, never newer
+        String eTag = ETags.ofRevision(carBrandService.currentRevision());
+        if (ifNoneMatch != null && ETags.matches(ifNoneMatch, eTag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        PagedResponse<CarBrandDTO> page = switch (mode) {
+            case OFFSET -> PagedResponse.from(carBrandService.findAll(pageable, filter, selected), requestUrl, relations);
+            case SLICE -> PagedResponse.from(carBrandService.findAllSlice(pageable, filter, selected), requestUrl, relations);
+            case ESTIMATED -> PagedResponse.fromEstimated(carBrandService.findAllEstimated(pageable, filter, selected),
+                    requestUrl, relations);
+            case CURSOR -> PagedResponse.from(carBrandService.findAllByCursor(pageable, filter,
+                    afterCursor, beforeCursor, selected), requestUrl, relations);
+        };
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(narrow(page, selected));
+    }
+
+    // Hot pages are answered with the bytes rendered for the first request, the tag is the revision they were rendered at
+    private ResponseEntity<?> cachedPage(Pageable pageable, CarBrandFilter filter, Set<CarBrandField> fields, String requestUrl,
+                                         Set<LinkRelation> relations, String ifNoneMatch, String acceptEncoding) {
+        CarBrandPageCache.Key key = CarBrandPageCache.Key.of(requestUrl, pageable);
+        Optional<CarBrandPageCache.Entry> cached = carBrandPageCache.get(key);
+        CarBrandPageCache.Entry entry;
+        if (cached.isPresent()) {
+            entry = cached.get();
+        } else {
+            long version = carBrandPageCache.version();
+            String eTag = ETags.ofRevision(carBrandService.currentRevision());
+            if (ifNoneMatch != null && ETags.matches(ifNoneMatch, eTag, true)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            entry = carBrandPageCache.put(key, version, eTag,
+                    narrow(PagedResponse.from(carBrandService.findAll(pageable, filter, fields), requestUrl, relations), fields));
+        }
+        if (ifNoneMatch != null && ETags.matches(ifNoneMatch, entry.eTag(), true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.eTag()).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(entry.eTag())
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (entry.gzip() == null) {
+            return response.body(entry.json());
+        }
+        response.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        return CarBrandPageCache.acceptsGzip(acceptEncoding)
+                ? response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzip())
+                : response.body(entry.json());
+    }
+
+    @GetMapping("search")
+    @StatementBudget(1)
+    public ResponseEntity<List<CarBrandSuggestion>> search(@RequestParam String q,
+                                                           @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(carBrandService.search(q, limit));
+    }
+
+    @GetMapping("export")
+    @StatementBudget(1)
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(required = false) String fields,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        Set<CarBrandField> selected = CarBrandField.parse(fields);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"car-brands." + exportFormat.getExtension() + "\"");
+        carBrandExporter.export(exportFormat, selected, response.getOutputStream());
+    }
+
+    // Every write as a server-sent event with its change sequence as id; a reconnect resumes after Last-Event-ID
+    // (or ?after). The replay runs on the feed's own thread, so the request itself runs no statements.
+    @GetMapping(value = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @StatementBudget(0)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                              @RequestParam(required = false) Long after) {
+        return carBrandChangeFeed.subscribe(after != null ? after : CarBrandChangeFeed.parseSequence(lastEventId));
     }
 
+    // One lookup, cached or narrowed to the selected columns plus the version, also answers If-None-Match;
+    // a current client gets a 304 without the brand being serialized
     @GetMapping("{uuid}")
-    public ResponseEntity<CarBrandDTO> getByUuid(@PathVariable UUID uuid) {
-        return carBrandService.findByUuid(uuid)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    @StatementBudget(1)
+    public ResponseEntity<?> getByUuid(@PathVariable UUID uuid,
+                                       @RequestParam(required = false) String fields,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<CarBrandField> selected = CarBrandField.parse(fields);
+        Optional<CarBrandDTO> found = carBrandService.findByUuid(uuid, selected);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        CarBrandDTO carBrandDTO = found.get();
+        String eTag = ETags.ofVersion(carBrandDTO.version());
+        if (ifNoneMatch != null && ETags.matches(ifNoneMatch, eTag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return withETag(ResponseEntity.ok(), carBrandDTO)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(CarBrandView.of(carBrandDTO, selected));
     }
 
     @PutMapping("{uuid}")
-    public ResponseEntity<CarBrandDTO> update(@PathVariable UUID uuid, @RequestBody CarBrandDTO carBrandDTO) {
-        return ResponseEntity.ok(carBrandService.update(uuid, carBrandDTO));
+    @StatementBudget(2)
+    public ResponseEntity<CarBrandDTO> update(@PathVariable UUID uuid, @RequestBody CarBrandDTO carBrandDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return conditionalWrite(ifMatch, expectedVersion ->
+                carBrandService.update(uuid, expectedVersion == null ? carBrandDTO : carBrandDTO.withVersion(expectedVersion)));
+    }
+
+    @PatchMapping("{uuid}")
+    @StatementBudget(2)
+    public ResponseEntity<CarBrandDTO> patch(@PathVariable UUID uuid, @RequestBody CarBrandPatch patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return conditionalWrite(ifMatch, expectedVersion ->
+                carBrandService.patch(uuid, expectedVersion == null ? patch : patch.withVersion(expectedVersion)));
     }
 
     @DeleteMapping("{uuid}")
+    @StatementBudget(2)
     public ResponseEntity<Void> deleteByUuid(@PathVariable UUID uuid) {
         carBrandService.deleteByUuid(uuid);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Runs a write, passing it the version named by {@code If-Match} or {@code null} without one (the
+     * version in the body, if any, then applies). The version check happens in the UPDATE itself; a
+     * stale {@code If-Match} is answered with 412 as HTTP requires, a stale body version with 409.
+     */
+    private static ResponseEntity<CarBrandDTO> conditionalWrite(String ifMatch, Function<Long, CarBrandDTO> write) {
+        Long expectedVersion = null;
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            Optional<Long> parsed = ETags.parseVersion(ifMatch);
+            if (parsed.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            expectedVersion = parsed.get();
+        }
+        try {
+            CarBrandDTO written = write.apply(expectedVersion);
+            return withETag(ResponseEntity.ok(), written).body(written);
+        } catch (VersionConflictException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+    }
+
+    // Whether the most preferred type of the Accept header is answered with JSON; absent means anything goes
+    private static boolean prefersJson(String accept) {
+        if (accept == null) {
+            return true;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // Left to content negotiation to reject
+            return false;
+        }
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        return mediaTypes.isEmpty() || mediaTypes.getFirst().includes(MediaType.APPLICATION_JSON);
+    }
+
+    private static PagedResponse<?> narrow(PagedResponse<CarBrandDTO> page, Set<CarBrandField> fields) {
+        return CarBrandField.selectsAll(fields) ? page : page.map(carBrandDTO -> new CarBrandView(carBrandDTO, fields));
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, CarBrandDTO carBrandDTO) {
+        return carBrandDTO.version() == null ? builder : builder.eTag(ETags.ofVersion(carBrandDTO.version()));
+    }
 }
@@ -0,0 +1,10 @@
+package app.kyosk.infraops.cars.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchDeleteResult(
+        int deleted,
+        List<UUID> notFound
+) {
+}
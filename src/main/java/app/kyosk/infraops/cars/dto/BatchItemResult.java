@@ -0,0 +1,26 @@
+package app.kyosk.infraops.cars.dto;
+
+public record BatchItemResult(
+        int index,
+        Status status,
+        CarBrandDTO carBrand,
+        String error
+) {
+    public enum Status {
+        CREATED,
+        UPDATED,
+        REJECTED
+    }
+
+    public static BatchItemResult created(int index, CarBrandDTO carBrand) {
+        return new BatchItemResult(index, Status.CREATED, carBrand, null);
+    }
+
+    public static BatchItemResult updated(int index, CarBrandDTO carBrand) {
+        return new BatchItemResult(index, Status.UPDATED, carBrand, null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, Status.REJECTED, null, error);
+    }
+}
@@ -0,0 +1,24 @@
+package app.kyosk.infraops.cars.dto;
+
+import java.util.List;
+
+public record BatchResult(
+        int created,
+        int updated,
+        int rejected,
+        List<BatchItemResult> items
+) {
+    public static BatchResult from(List<BatchItemResult> items) {
+        int created = 0;
+        int updated = 0;
+        int rejected = 0;
+        for (BatchItemResult item : items) {
+            switch (item.status()) {
+                case CREATED -> created++;
+                case UPDATED -> updated++;
+                case REJECTED -> rejected++;
+            }
+        }
+        return new BatchResult(created, updated, rejected, items);
+    }
+}
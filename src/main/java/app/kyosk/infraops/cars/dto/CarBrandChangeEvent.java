@@ -0,0 +1,18 @@
+package app.kyosk.infraops.cars.dto;
+
+import app.kyosk.infraops.cars.events.CarBrandChange;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One entry of the change feed. Sequences grow in commit order across all replicas; they can have
+ * gaps, where a write was rolled back.
+ */
+public record CarBrandChangeEvent(
+        long sequence,
+        CarBrandChange.Type type,
+        UUID uuid,
+        LocalDateTime changedAt
+) {
+}
@@ -10,6 +10,10 @@ public record CarBrandDTO(
         String countryOfOrigin,
         Integer foundedYear,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Long version
 ) {
+    public CarBrandDTO withVersion(Long version) {
+        return new CarBrandDTO(uuid, name, countryOfOrigin, foundedYear, createdAt, updatedAt, version);
+    }
 }
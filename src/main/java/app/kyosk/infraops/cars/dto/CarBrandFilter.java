@@ -0,0 +1,78 @@
+package app.kyosk.infraops.cars.dto;
+
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
+import app.kyosk.infraops.cars.repository.CarBrandSortField;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Optional filters of a car brand listing: an exact country of origin and an inclusive founded-year
+ * range. Every condition that is set is ANDed into the listing's single WHERE clause.
+ */
+public record CarBrandFilter(
+        String countryOfOrigin,
+        Integer foundedYearFrom,
+        Integer foundedYearTo
+) {
+    public static final CarBrandFilter NONE = new CarBrandFilter(null, null, null);
+
+    // The columns following country_of_origin in V202610171400__Car_Brand_Filter_Indexes.sql
+    private static final Set<CarBrandSortField> COUNTRY_SORTS = EnumSet.of(CarBrandSortField.NAME,
+            CarBrandSortField.FOUNDED_YEAR);
+
+    public CarBrandFilter {
+        if (foundedYearFrom != null && foundedYearTo != null && foundedYearFrom > foundedYearTo) {
+            throw new InvalidPageRequestException("foundedYearFrom must not be after foundedYearTo");
+        }
+        if (countryOfOrigin != null && countryOfOrigin.isBlank()) {
+            countryOfOrigin = null;
+        }
+    }
+
+    public boolean isEmpty() {
+        return countryOfOrigin == null && foundedYearFrom == null && foundedYearTo == null;
+    }
+
+    /**
+     * The order a listing takes without an explicit sort. A bare founded-year range is a range scan
+     * on (founded_year, id), so it is read in founded-year order; everything else in id order.
+     */
+    public CarBrandSortField defaultSortField() {
+        return countryOfOrigin == null && (foundedYearFrom != null || foundedYearTo != null)
+                ? CarBrandSortField.FOUNDED_YEAR : CarBrandSortField.ID;
+    }
+
+    /**
+     * Whether one index both narrows the listing to this filter and returns it ordered by
+     * {@code fields} followed by the id tie-breaker, so a page stops after LIMIT rows. The indexes
+     * are the (column, id) ones of V202610170900__Car_Brand_Keyset_Indexes.sql and the country
+     * composites of V202610171400__Car_Brand_Filter_Indexes.sql:
+     * <ul>
+     *     <li>no filter: any single column, or country then name or founded year</li>
+     *     <li>a country: name or founded year, as the country itself is constant</li>
+     *     <li>only a founded-year range: founded year</li>
+     * </ul>
+     * Id may close any of them. An empty list is the order of {@link #defaultSortField()}.
+     */
+    public boolean supportsSort(List<CarBrandSortField> fields) {
+        List<CarBrandSortField> columns = new ArrayList<>(fields);
+        if (!columns.isEmpty() && columns.getLast() == CarBrandSortField.ID) {
+            columns.removeLast();
+        }
+        if (columns.contains(CarBrandSortField.ID)) {
+            return false;
+        }
+        if (countryOfOrigin != null) {
+            columns.remove(CarBrandSortField.COUNTRY_OF_ORIGIN);
+            return columns.isEmpty() || columns.size() == 1 && COUNTRY_SORTS.contains(columns.getFirst());
+        }
+        if (foundedYearFrom != null || foundedYearTo != null) {
+            return columns.isEmpty() ? fields.isEmpty() : columns.equals(List.of(CarBrandSortField.FOUNDED_YEAR));
+        }
+        return columns.size() <= 1 || columns.size() == 2 && columns.getFirst() == CarBrandSortField.COUNTRY_OF_ORIGIN
+                && COUNTRY_SORTS.contains(columns.get(1));
+    }
+}
@@ -0,0 +1,56 @@
+package app.kyosk.infraops.cars.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.Optional;
+
+/**
+ * Partial update of a car brand. A {@code null} field was left out of the request and is not
+ * written; an empty {@link Optional} was sent as JSON {@code null} and clears the column.
+ * {@code version}, when set, is the version the change was based on.
+ */
+public record CarBrandPatch(
+        Optional<String> name,
+        Optional<String> countryOfOrigin,
+        Optional<Integer> foundedYear,
+        Long version
+) {
+    // Jackson fills missing record components with Optional.empty(), so presence is read off the raw object
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    static CarBrandPatch fromJson(Map<String, Object> json) {
+        Integer foundedYear = field(json, "foundedYear", Number.class, Number::intValue);
+        Long version = field(json, "version", Number.class, Number::longValue);
+        return new CarBrandPatch(
+                present(json, "name", field(json, "name", String.class, String::valueOf)),
+                present(json, "countryOfOrigin", field(json, "countryOfOrigin", String.class, String::valueOf)),
+                present(json, "foundedYear", foundedYear),
+                version
+        );
+    }
+
+    public CarBrandPatch withVersion(Long version) {
+        return new CarBrandPatch(name, countryOfOrigin, foundedYear, version);
+    }
+
+    public boolean isEmpty() {
+        return name == null && countryOfOrigin == null && foundedYear == null;
+    }
+
+    private static <T> Optional<T> present(Map<String, Object> json, String key, T value) {
+        return json.containsKey(key) ? Optional.ofNullable(value) : null;
+    }
+
+    private static <J, T> T field(Map<String, Object> json, String key, Class<J> type,
+                                  Function<J, T> convert) {
+        Object value = json.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("Field " + key + " has the wrong type");
+        }
+        return convert.apply(type.cast(value));
+    }
+}
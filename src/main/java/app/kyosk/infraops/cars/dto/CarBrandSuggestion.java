@@ -0,0 +1,10 @@
+package app.kyosk.infraops.cars.dto;
+
+import java.util.UUID;
+
+// One autocomplete hit: enough to show the name and fetch the brand
+public record CarBrandSuggestion(
+        UUID uuid,
+        String name
+) {
+}
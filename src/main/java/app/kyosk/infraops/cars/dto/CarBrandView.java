@@ -0,0 +1,42 @@
+package app.kyosk.infraops.cars.dto;
+
+import app.kyosk.infraops.cars.repository.CarBrandField;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A car brand narrowed to the properties selected with {@code ?fields=}. Only those are written,
+ * in declaration order; the rest are left out of the JSON rather than written as null, so a
+ * selected property that is null in the row still shows up as null.
+ */
+@JsonSerialize(using = CarBrandView.Serializer.class)
+public record CarBrandView(
+        CarBrandDTO carBrand,
+        Set<CarBrandField> fields
+) {
+    // Unnarrowed responses keep the plain DTO and its generated serializer
+    public static Object of(CarBrandDTO carBrandDTO, Set<CarBrandField> fields) {
+        return CarBrandField.selectsAll(fields) ? carBrandDTO : new CarBrandView(carBrandDTO, fields);
+    }
+
+    public static class Serializer extends StdSerializer<CarBrandView> {
+
+        public Serializer() {
+            super(CarBrandView.class);
+        }
+
+        @Override
+        public void serialize(CarBrandView view, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(view);
+            for (CarBrandField field : view.fields()) {
+                provider.defaultSerializeField(field.getProperty(), field.valueOf(view.carBrand()), generator);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package app.kyosk.infraops.cars.dto;
+
+import java.util.List;
+
+public record ImportResult(
+        long inserted,
+        long updated,
+        long unchanged,
+        long rejected,
+        List<Rejection> rejections
+) {
+    // record is the 1-based data record of the upload, the header not counted
+    public record Rejection(long record, String error) {
+    }
+}
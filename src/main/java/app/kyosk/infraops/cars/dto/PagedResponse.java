@@ -1,10 +1,17 @@
 package app.kyosk.infraops.cars.dto;
 
+import app.kyosk.infraops.cars.util.KeysetPage;
+import app.kyosk.infraops.cars.util.LinkRelation;
 import app.kyosk.infraops.cars.util.PageLinks;
 import app.kyosk.infraops.cars.util.PageMetadata;
+import app.kyosk.infraops.cars.util.PagingMode;
+import app.kyosk.infraops.cars.util.TotalKind;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 public record PagedResponse<T>(
         List<T> content,
@@ -12,10 +19,54 @@ public record PagedResponse<T>(
         PageLinks links
 ) {
     public static <T> PagedResponse<T> from(Page<T> page, String baseUrl) {
+        return from(page, baseUrl, LinkRelation.ALL);
+    }
+
+    public static <T> PagedResponse<T> from(Page<T> page, String baseUrl, Set<LinkRelation> links) {
+        return new PagedResponse<>(
+                page.getContent(),
+                PageMetadata.from(page),
+                PageLinks.from(page, baseUrl, PagingMode.OFFSET, links)
+        );
+    }
+
+    public static <T> PagedResponse<T> fromEstimated(Page<T> page, String baseUrl) {
+        return fromEstimated(page, baseUrl, LinkRelation.ALL);
+    }
+
+    public static <T> PagedResponse<T> fromEstimated(Page<T> page, String baseUrl, Set<LinkRelation> links) {
         return new PagedResponse<>(
                 page.getContent(),
+                PageMetadata.from(page, TotalKind.ESTIMATED),
+                PageLinks.from(page, baseUrl, PagingMode.ESTIMATED, links)
+        );
+    }
+
+    public static <T> PagedResponse<T> from(Slice<T> slice, String baseUrl) {
+        return from(slice, baseUrl, LinkRelation.ALL);
+    }
+
+    public static <T> PagedResponse<T> from(Slice<T> slice, String baseUrl, Set<LinkRelation> links) {
+        return new PagedResponse<>(
+                slice.getContent(),
+                PageMetadata.from(slice),
+                PageLinks.from(slice, baseUrl, links)
+        );
+    }
+
+    public static <T> PagedResponse<T> from(KeysetPage<T> page, String requestUrl) {
+        return from(page, requestUrl, LinkRelation.ALL);
+    }
+
+    public static <T> PagedResponse<T> from(KeysetPage<T> page, String requestUrl, Set<LinkRelation> links) {
+        return new PagedResponse<>(
+                page.content(),
                 PageMetadata.from(page),
-                PageLinks.from(page, baseUrl)
+                PageLinks.from(page, requestUrl, links)
         );
     }
-}
\ No newline at end of file
+
+    public <R> PagedResponse<R> map(Function<? super T, ? extends R> mapper) {
+        return new PagedResponse<>(content.stream().<R>map(mapper).toList(), metadata, links);
+    }
+}
@@ -18,7 +18,8 @@ import org.hibernate.annotations.UuidGenerator;
 public class CarBrand {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_brand_id_seq")
+    @SequenceGenerator(name = "car_brand_id_seq", sequenceName = "car_brand_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name="uuid")
@@ -42,4 +43,8 @@ public class CarBrand {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
 }
@@ -0,0 +1,28 @@
+package app.kyosk.infraops.cars.events;
+
+import java.util.UUID;
+
+/**
+ * A committed write to a car brand. Published as a Spring event on every replica: directly on the
+ * replica that made the write and through PostgreSQL {@code NOTIFY} on all the others.
+ */
+public record CarBrandChange(Type type, UUID uuid) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static CarBrandChange created(UUID uuid) {
+        return new CarBrandChange(Type.CREATED, uuid);
+    }
+
+    public static CarBrandChange updated(UUID uuid) {
+        return new CarBrandChange(Type.UPDATED, uuid);
+    }
+
+    public static CarBrandChange deleted(UUID uuid) {
+        return new CarBrandChange(Type.DELETED, uuid);
+    }
+}
@@ -0,0 +1,9 @@
+package app.kyosk.infraops.cars.events;
+
+/**
+ * Published whenever the {@code LISTEN} connection is (re-)established, since notifications sent while
+ * it was down are lost, and for bulk writes that change too many brands to announce one by one. Either
+ * way anything derived from {@link CarBrandChange} events has to be rebuilt.
+ */
+public record CarBrandChangeFeedReset() {
+}
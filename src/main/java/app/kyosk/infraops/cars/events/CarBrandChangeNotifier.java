@@ -0,0 +1,176 @@
+package app.kyosk.infraops.cars.events;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fans {@link CarBrandChange}s out across replicas with PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Changes made on this replica are published locally as Spring events straight away and sent with
+ * {@code pg_notify}; a dedicated connection (kept out of the Hikari pool) listens on the same channel
+ * and republishes the changes of the other replicas. When {@code pg_notify} runs inside a transaction
+ * PostgreSQL only delivers it on commit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CarBrandChangeNotifier implements SmartLifecycle {
+
+    static final String CHANNEL = "car_brand_changes";
+    // Notified by the car_brand_change trigger, see V202610171500__Car_Brand_Change_Log.sql
+    static final String LOG_CHANNEL = "car_brand_change_log";
+    private static final String NOTIFY_ALL = "SELECT pg_notify(?, payload) FROM unnest(?::text[]) AS payload";
+    private static final String SEPARATOR = "|";
+    private static final String RESET = "RESET";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CarBrandProperties properties;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile boolean running;
+    private volatile Thread listenerThread;
+
+    public void publish(CarBrandChange change) {
+        publishAll(List.of(change));
+    }
+
+    public void publishAll(Collection<CarBrandChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        changes.forEach(eventPublisher::publishEvent);
+        notifyAll(changes.stream().map(this::encode).toArray(String[]::new));
+    }
+
+    // Stands in for the changes of a bulk write, every replica drops what it derived from change events
+    public void publishReset() {
+        eventPublisher.publishEvent(new CarBrandChangeFeedReset());
+        notifyAll(new String[]{instanceId + SEPARATOR + RESET});
+    }
+
+    private void notifyAll(String[] payloads) {
+        if (!properties.getNotifications().isEnabled()) {
+            return;
+        }
+        // One round trip however many changes there are
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(NOTIFY_ALL);
+            statement.setString(1, CHANNEL);
+            statement.setArray(2, con.createArrayOf("text", payloads));
+            return statement;
+        }, (RowCallbackHandler) rs -> { });
+    }
+
+    @Override
+    public void start() {
+        if (!properties.getNotifications().isEnabled()) {
+            log.info("Car brand change notifications are disabled, caches on other replicas will rely on their TTL");
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform().name("car-brand-change-listener").daemon().start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = listenerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        CarBrandProperties.Notifications settings = properties.getNotifications();
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + LOG_CHANNEL);
+                }
+                log.info("Listening for car brand changes on channel {}", CHANNEL);
+                eventPublisher.publishEvent(new CarBrandChangeFeedReset());
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) settings.getPollTimeout().toMillis());
+                    if (notifications == null) {
+                        continue;
+                    }
+                    boolean logged = false;
+                    for (PGNotification notification : notifications) {
+                        if (LOG_CHANNEL.equals(notification.getName())) {
+                            logged = true;
+                        } else {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                    if (logged) {
+                        eventPublisher.publishEvent(new CarBrandChangesLogged());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lost the car brand change listener connection, retrying in {}", settings.getReconnectDelay(), e);
+                try {
+                    Thread.sleep(settings.getReconnectDelay());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (instanceId.equals(parts[0])) {
+            // Already published locally when the change was made
+            return;
+        }
+        if (parts.length == 2 && RESET.equals(parts[1])) {
+            eventPublisher.publishEvent(new CarBrandChangeFeedReset());
+            return;
+        }
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed car brand change notification: {}", payload);
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new CarBrandChange(CarBrandChange.Type.valueOf(parts[1]), UUID.fromString(parts[2])));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed car brand change notification: {}", payload);
+        }
+    }
+
+    private String encode(CarBrandChange change) {
+        return instanceId + SEPARATOR + change.type() + SEPARATOR + change.uuid();
+    }
+}
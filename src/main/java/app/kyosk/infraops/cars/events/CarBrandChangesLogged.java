@@ -0,0 +1,8 @@
+package app.kyosk.infraops.cars.events;
+
+/**
+ * Published when a transaction on any replica committed rows to the {@code car_brand_change} log,
+ * signalled by the log's triggers through PostgreSQL {@code NOTIFY}.
+ */
+public record CarBrandChangesLogged() {
+}
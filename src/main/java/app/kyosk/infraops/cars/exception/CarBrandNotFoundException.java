@@ -0,0 +1,15 @@
+package app.kyosk.infraops.cars.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+// Extends IllegalArgumentException, which is what callers caught before it existed
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class CarBrandNotFoundException extends IllegalArgumentException {
+
+    public CarBrandNotFoundException(UUID uuid) {
+        super("Car brand not found with UUID: " + uuid);
+    }
+}
@@ -0,0 +1,12 @@
+package app.kyosk.infraops.cars.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ChangeFeedFullException extends RuntimeException {
+
+    public ChangeFeedFullException(int maxSubscribers) {
+        super("The change feed already has its maximum of " + maxSubscribers + " subscribers");
+    }
+}
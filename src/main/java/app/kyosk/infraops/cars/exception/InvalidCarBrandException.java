@@ -0,0 +1,12 @@
+package app.kyosk.infraops.cars.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCarBrandException extends RuntimeException {
+
+    public InvalidCarBrandException(String message) {
+        super(message);
+    }
+}
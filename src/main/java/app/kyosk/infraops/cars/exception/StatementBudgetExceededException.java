@@ -0,0 +1,9 @@
+package app.kyosk.infraops.cars.exception;
+
+// Only thrown when overruns are configured to fail, which is meant for tests
+public class StatementBudgetExceededException extends IllegalStateException {
+
+    public StatementBudgetExceededException(String scope, int budget) {
+        super(scope + " ran more than its budget of " + budget + " SQL statements");
+    }
+}
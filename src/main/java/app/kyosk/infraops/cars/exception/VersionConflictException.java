@@ -0,0 +1,14 @@
+package app.kyosk.infraops.cars.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(UUID uuid, long expectedVersion, long currentVersion) {
+        super("Car brand " + uuid + " is at version " + currentVersion + ", not " + expectedVersion);
+    }
+}
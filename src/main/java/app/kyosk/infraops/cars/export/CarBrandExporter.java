@@ -0,0 +1,198 @@
+package app.kyosk.infraops.cars.export;
+
+import app.kyosk.infraops.cars.codec.CarBrandColumns;
+import app.kyosk.infraops.cars.codec.CarBrandEncodings;
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandView;
+import app.kyosk.infraops.cars.repository.CarBrandField;
+import app.kyosk.infraops.cars.services.CarBrandService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the whole catalog to an output stream one row at a time. Rows come off a forward-only
+ * database cursor and are written as soon as they are read, so heap use does not depend on the
+ * size of the table. With a narrowed selection only the selected columns are read and written.
+ */
+@Component
+@RequiredArgsConstructor
+public class CarBrandExporter {
+
+    // The full CSV export has no version column
+    private static final Set<CarBrandField> CSV_COLUMNS = Collections.unmodifiableSet(
+            EnumSet.complementOf(EnumSet.of(CarBrandField.VERSION)));
+
+    private final CarBrandService carBrandService;
+    private final ObjectMapper objectMapper;
+    private final CarBrandProperties properties;
+
+    public void export(ExportFormat format, Set<CarBrandField> fields, OutputStream outputStream) throws IOException {
+        Set<CarBrandField> columns = format == ExportFormat.CSV && CarBrandField.selectsAll(fields) ? CSV_COLUMNS : fields;
+        try (RowWriter writer = switch (format) {
+            case NDJSON -> new SequenceRowWriter(jsonGenerator(outputStream), fields);
+            case CSV -> new CsvRowWriter(outputStream, columns);
+            case CBOR -> new SequenceRowWriter(cborGenerator(outputStream), fields);
+            case COLUMNAR -> new ColumnarRowWriter(cborGenerator(outputStream), fields);
+        }) {
+            carBrandService.exportAll(columns, carBrandDTO -> {
+                try {
+                    writer.write(carBrandDTO);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // The response stream belongs to the servlet container; JSON rows are separated by hand below
+    private JsonGenerator jsonGenerator(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    // Values are still serialized by the application's mapper, only the encoding differs
+    private static JsonGenerator cborGenerator(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = CarBrandEncodings.CBOR_FACTORY.createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private interface RowWriter extends Closeable {
+        void write(CarBrandDTO carBrandDTO) throws IOException;
+    }
+
+    // One item per brand: newline-separated JSON objects, or CBOR items back to back
+    private class SequenceRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter rowWriter;
+        private final Set<CarBrandField> fields;
+        private final boolean text;
+
+        SequenceRowWriter(JsonGenerator generator, Set<CarBrandField> fields) {
+            this.generator = generator;
+            this.fields = fields;
+            this.text = !generator.canWriteBinaryNatively();
+            rowWriter = objectMapper.writerFor(CarBrandField.selectsAll(fields) ? CarBrandDTO.class : CarBrandView.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(CarBrandDTO carBrandDTO) throws IOException {
+            rowWriter.writeValue(generator, CarBrandView.of(carBrandDTO, fields));
+            if (text) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    // Collects brands into batches and writes every batch as one CBOR item of columns
+    private class ColumnarRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter batchWriter;
+        private final Set<CarBrandField> fields;
+        private final int batchSize;
+        private final List<CarBrandDTO> batch;
+
+        ColumnarRowWriter(JsonGenerator generator, Set<CarBrandField> fields) {
+            this.generator = generator;
+            this.fields = fields;
+            this.batchSize = properties.getExport().getColumnarBatchSize();
+            this.batch = new ArrayList<>(batchSize);
+            batchWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(CarBrandDTO carBrandDTO) throws IOException {
+            batch.add(carBrandDTO);
+            if (batch.size() == batchSize) {
+                writeBatch();
+            }
+        }
+
+        private void writeBatch() throws IOException {
+            if (!batch.isEmpty()) {
+                batchWriter.writeValue(generator, CarBrandColumns.of(batch, fields));
+                batch.clear();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeBatch();
+            generator.close();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final CarBrandField[] columns;
+
+        CsvRowWriter(OutputStream outputStream, Set<CarBrandField> columns) throws IOException {
+            this.columns = columns.stream().sorted().toArray(CarBrandField[]::new);
+            writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write(Arrays.stream(this.columns).map(CarBrandField::getColumn).collect(Collectors.joining(",")));
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(CarBrandDTO carBrandDTO) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(columns[i].valueOf(carBrandDTO));
+            }
+            writer.write('\n');
+        }
+
+        private void writeField(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Flush only, closing would close the response stream underneath
+            writer.flush();
+        }
+    }
+}
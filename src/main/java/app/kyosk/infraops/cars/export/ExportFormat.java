@@ -0,0 +1,28 @@
+package app.kyosk.infraops.cars.export;
+
+import app.kyosk.infraops.cars.exception.UnsupportedExportFormatException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv"),
+    // One CBOR item per brand
+    CBOR("cbor", "application/cbor-seq"),
+    // One CBOR item per batch of brands, laid out column by column
+    COLUMNAR("cbor", "application/vnd.infraops.columnar+cbor");
+
+    private final String extension;
+    private final String contentType;
+
+    public static ExportFormat from(String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.name().equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new UnsupportedExportFormatException("Unsupported export format: " + value));
+    }
+}
@@ -0,0 +1,403 @@
+package app.kyosk.infraops.cars.feed;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.CarBrandChangeEvent;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeFeedReset;
+import app.kyosk.infraops.cars.events.CarBrandChangesLogged;
+import app.kyosk.infraops.cars.exception.ChangeFeedFullException;
+import app.kyosk.infraops.cars.exception.InvalidChangeFeedRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the {@code car_brand_change} log to the subscribers of {@code GET /api/v1/car-brands/changes}
+ * as server-sent events, with the log sequence as event id.
+ * <p>
+ * Writers append entries without a sequence number, so they never wait for each other. Before reading,
+ * the feed numbers the committed entries in the order they were written, holding an advisory lock
+ * so replicas take turns: numbers are handed out in commit order, and a subscriber that has seen
+ * sequence n never misses a smaller one that shows up later.
+ * <p>
+ * One thread per replica reads the log and hands new entries to every subscriber. It is woken by the
+ * log's {@code NOTIFY} (forwarded by the change notifier), by local writes and by a poll as backstop.
+ * Subscribers hold no thread while idle: each has a queue that a virtual thread drains only while
+ * there is something to write, so a slow client only delays itself. A subscriber resuming after a
+ * sequence is replayed the entries after it before it joins; when those were pruned already, or are
+ * too many, it gets a {@code reset} event telling it to re-list and carry on from there. Bulk writes
+ * that keep their rows out of the log leave a single RESET entry, which reaches everyone as the same
+ * {@code reset} event.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CarBrandChangeFeed implements SmartLifecycle, MeterBinder {
+
+    static final String RESET_EVENT = "reset";
+    static final String SUBSCRIBERS_GAUGE = "car_brands.feed.subscribers";
+
+    private static final String FIND_HEAD = "SELECT coalesce(max(sequence), 0) FROM car_brand_change";
+    private static final String FIND_OLDEST = "SELECT min(sequence) FROM car_brand_change";
+    private static final String FIND_AFTER = """
+            SELECT sequence, type, uuid, changed_at FROM car_brand_change
+            WHERE sequence > ?
+            ORDER BY sequence
+            LIMIT ?""";
+    private static final String LOCK_SEQUENCING = "SELECT pg_advisory_xact_lock(hashtext('car_brand_change_sequence'))";
+    // nextval runs over the pending entries in id order, the subquery's sort is kept
+    private static final String ASSIGN_SEQUENCES = """
+            UPDATE car_brand_change c SET sequence = numbered.sequence
+            FROM (SELECT id, nextval('car_brand_change_sequence') AS sequence
+                  FROM (SELECT id FROM car_brand_change WHERE sequence IS NULL ORDER BY id LIMIT ?) pending) numbered
+            WHERE c.id = numbered.id""";
+    private static final String PRUNE = "DELETE FROM car_brand_change WHERE changed_at < CURRENT_TIMESTAMP - ? * interval '1 second'";
+    private static final Duration PRUNE_INTERVAL = Duration.ofMinutes(10);
+    // Logged once by a bulk write that skipped the log, in place of its rows
+    private static final String RESET_TYPE = "RESET";
+    private static final RowMapper<LogEntry> ENTRY_ROW_MAPPER = (rs, rowNum) -> {
+        long sequence = rs.getLong("sequence");
+        String type = rs.getString("type");
+        return new LogEntry(sequence, RESET_TYPE.equals(type) ? null : new CarBrandChangeEvent(
+                sequence,
+                CarBrandChange.Type.valueOf(type),
+                rs.getObject("uuid", UUID.class),
+                rs.getTimestamp("changed_at").toLocalDateTime()));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CarBrandProperties properties;
+    private final ObjectMapper objectMapper;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("car-brand-change-feed").daemon().factory());
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicBoolean catchUpPending = new AtomicBoolean();
+    private volatile boolean running;
+    // Last sequence handed to the subscribers, -1 while nobody listens; only used on the feed thread
+    private long head = -1;
+
+    /**
+     * Opens a subscription that starts after {@code after}, or with the next change when it is
+     * {@code null}.
+     */
+    public SseEmitter subscribe(Long after) {
+        if (after != null && after < 0) {
+            throw new InvalidChangeFeedRequestException("A change feed sequence cannot be negative: " + after);
+        }
+        CarBrandProperties.Feed settings = properties.getFeed();
+        if (subscriberCount.incrementAndGet() > settings.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new ChangeFeedFullException(settings.getMaxSubscribers());
+        }
+        SseEmitter emitter = new SseEmitter(settings.getSubscriptionTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscriber.close());
+        try {
+            executor.execute(() -> join(subscriber, after));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscriber.close();
+            throw new ChangeFeedFullException(settings.getMaxSubscribers());
+        }
+        return emitter;
+    }
+
+    /**
+     * The sequence named by a {@code Last-Event-ID} header, {@code null} without one.
+     */
+    public static Long parseSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidChangeFeedRequestException("Last-Event-ID is not a change feed sequence: " + lastEventId);
+        }
+    }
+
+    @EventListener
+    public void onChangesLogged(CarBrandChangesLogged event) {
+        requestCatchUp();
+    }
+
+    // Notifications sent while the listener was reconnecting are lost, the log itself is not
+    @EventListener
+    public void onFeedReset(CarBrandChangeFeedReset event) {
+        requestCatchUp();
+    }
+
+    // Local writes reach subscribers without waiting for the notification, or the poll when notifications are off
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(CarBrandChange change) {
+        requestCatchUp();
+    }
+
+    @Override
+    public void start() {
+        CarBrandProperties.Feed settings = properties.getFeed();
+        long poll = settings.getPollInterval().toMillis();
+        long heartbeat = settings.getHeartbeat().toMillis();
+        executor.scheduleWithFixedDelay(() -> guarded(this::catchUp), poll, poll, TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(() -> guarded(this::heartbeat), heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(() -> guarded(this::prune), PRUNE_INTERVAL.toMillis(), PRUNE_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdownNow();
+        // Clients reconnect with Last-Event-ID, to a replica that is still up
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(SUBSCRIBERS_GAUGE, subscriberCount, AtomicInteger::get)
+                .description("Open change feed subscriptions")
+                .register(registry);
+    }
+
+    private void requestCatchUp() {
+        if (catchUpPending.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    catchUpPending.set(false);
+                    guarded(this::catchUp);
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+    }
+
+    private void join(Subscriber subscriber, Long after) {
+        try {
+            assignSequences();
+            long current = head();
+            if (after != null && after < current) {
+                replay(subscriber, after, current);
+            }
+            subscribers.add(subscriber);
+            if (subscriber.closed.get()) {
+                subscribers.remove(subscriber);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not start a change feed subscription", e);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void replay(Subscriber subscriber, long after, long until) {
+        Long oldest = jdbcTemplate.queryForObject(FIND_OLDEST, Long.class);
+        // A sequence gap at the start can also be a rolled back write, re-listing is safe either way
+        if (oldest == null || oldest > after + 1 || until - after > properties.getFeed().getMaxPendingEvents()) {
+            LogEntry reset = new LogEntry(until, null);
+            subscriber.offer(toSse(reset, toData(reset)));
+            return;
+        }
+        long cursor = after;
+        while (cursor < until) {
+            List<LogEntry> entries = read(cursor);
+            if (entries.isEmpty()) {
+                return;
+            }
+            for (LogEntry entry : entries) {
+                if (entry.sequence() > until) {
+                    return;
+                }
+                subscriber.offer(toSse(entry, toData(entry)));
+                cursor = entry.sequence();
+            }
+        }
+    }
+
+    private void catchUp() {
+        if (subscribers.isEmpty()) {
+            // Re-read on the next subscription instead of following a log nobody listens to
+            head = -1;
+            return;
+        }
+        assignSequences();
+        long current = head();
+        int batchSize = properties.getFeed().getBatchSize();
+        List<LogEntry> entries;
+        do {
+            entries = read(current);
+            for (LogEntry entry : entries) {
+                String data = toData(entry);
+                subscribers.forEach(subscriber -> subscriber.offer(toSse(entry, data)));
+                current = entry.sequence();
+            }
+            head = current;
+        } while (entries.size() == batchSize);
+    }
+
+    /**
+     * Numbers the committed entries that have no sequence yet. The lock is taken before the update
+     * reads anything, so the update sees every number a replica handed out before it.
+     */
+    void assignSequences() {
+        int batchSize = properties.getFeed().getBatchSize();
+        Integer assigned;
+        do {
+            assigned = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute(LOCK_SEQUENCING);
+                return jdbcTemplate.update(ASSIGN_SEQUENCES, batchSize);
+            });
+        } while (assigned != null && assigned == batchSize);
+    }
+
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("")));
+    }
+
+    private void prune() {
+        int pruned = jdbcTemplate.update(PRUNE, properties.getFeed().getRetention().toSeconds());
+        if (pruned > 0) {
+            log.debug("Pruned {} change feed entries", pruned);
+        }
+    }
+
+    private long head() {
+        if (head < 0) {
+            Long max = jdbcTemplate.queryForObject(FIND_HEAD, Long.class);
+            head = max == null ? 0 : max;
+        }
+        return head;
+    }
+
+    private List<LogEntry> read(long after) {
+        return jdbcTemplate.query(FIND_AFTER, ENTRY_ROW_MAPPER, after, properties.getFeed().getBatchSize());
+    }
+
+    // Serialized once per entry, not once per subscriber
+    private String toData(LogEntry entry) {
+        if (entry.isReset()) {
+            return "{\"sequence\":" + entry.sequence() + "}";
+        }
+        try {
+            return objectMapper.writeValueAsString(entry.change());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(LogEntry entry, String data) {
+        return SseEmitter.event()
+                .id(Long.toString(entry.sequence()))
+                .name(entry.isReset() ? RESET_EVENT : entry.change().type().name().toLowerCase(Locale.ROOT))
+                .data(data);
+    }
+
+    private static void guarded(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Change feed task failed", e);
+        }
+    }
+
+    // A change, or a reset when change is null
+    private record LogEntry(long sequence, CarBrandChangeEvent change) {
+
+        boolean isReset() {
+            return change == null;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > properties.getFeed().getMaxPendingEvents()) {
+                // Too slow to keep up: it resumes from the log, or is told to re-list, when it reconnects
+                close();
+                emitter.complete();
+                return;
+            }
+            pending.add(event);
+            if (draining.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("car-brand-change-feed-subscriber").start(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // The client went away; the container reports it through onError/onCompletion
+                        close();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+                pending.clear();
+            }
+        }
+    }
+}
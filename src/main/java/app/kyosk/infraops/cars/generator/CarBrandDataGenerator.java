@@ -0,0 +1,201 @@
+package app.kyosk.infraops.cars.generator;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills {@code car_brand} with a synthetic dataset for scale testing, then exits. Run the
+ * application with the {@code generate-data} profile; size, seed and parallelism come from
+ * {@code infraops.car-brands.generator}.
+ * <p>
+ * Rows are split into chunks that worker threads {@code COPY} in, each in its own transaction that
+ * also records the chunk as done. A stopped run picks up where it left off when started again with
+ * the same seed and chunk size. Ids are assigned from {@code firstId}, so the same seed produces the
+ * same rows, ids included, regardless of thread count or which run wrote which chunk.
+ */
+@Slf4j
+@Component
+@Profile("generate-data")
+@RequiredArgsConstructor
+public class CarBrandDataGenerator implements ApplicationRunner {
+
+    private static final String CREATE_PROGRESS = """
+            CREATE TABLE IF NOT EXISTS car_brand_generator_progress (
+                seed       bigint NOT NULL,
+                chunk_size int    NOT NULL,
+                chunk      bigint NOT NULL,
+                rows       bigint NOT NULL,
+                PRIMARY KEY (seed, chunk_size, chunk)
+            )""";
+    private static final String FIND_PROGRESS = "SELECT seed, chunk_size, chunk FROM car_brand_generator_progress";
+    private static final String MARK_DONE = "INSERT INTO car_brand_generator_progress (seed, chunk_size, chunk, rows) VALUES (?, ?, ?, ?)";
+    private static final String COPY_ROWS = """
+            COPY car_brand (id, uuid, name, country_of_origin, founded_year, created_at, updated_at)
+            FROM STDIN WITH (FORMAT csv)""";
+    // Keeps the id sequence ahead of the generated ids so the application's inserts cannot collide with them
+    private static final String ADVANCE_SEQUENCE = """
+            SELECT setval('car_brand_id_seq', greatest((SELECT last_value FROM car_brand_id_seq), (SELECT max(id) FROM car_brand)))""";
+    // Rows are sent to the server in pieces of this many, a chunk is never held in memory whole
+    private static final int ROWS_PER_WRITE = 5_000;
+
+    private final DataSource dataSource;
+    private final CarBrandProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        generate();
+        System.exit(SpringApplication.exit(context));
+    }
+
+    /**
+     * Writes every chunk of the configured dataset that is not recorded as done yet and returns the
+     * number of rows written by this call.
+     */
+    public long generate() throws SQLException, InterruptedException {
+        CarBrandProperties.Generator settings = properties.getGenerator();
+        long rows = settings.getRows();
+        int chunkSize = settings.getChunkSize();
+        long chunks = (rows + chunkSize - 1) / chunkSize;
+        Set<Long> done = doneChunks(settings);
+        log.info("Generating {} car brands with seed {} in {} chunks, {} already done", rows, settings.getSeed(),
+                chunks, done.size());
+
+        SyntheticCarBrands brands = new SyntheticCarBrands(settings.getSeed());
+        AtomicLong written = new AtomicLong();
+        AtomicLong completed = new AtomicLong(done.size());
+        ExecutorService workers = Executors.newFixedThreadPool(settings.getThreads());
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                if (done.contains(chunk)) {
+                    continue;
+                }
+                long first = chunk * chunkSize;
+                long last = Math.min(rows, first + chunkSize);
+                long current = chunk;
+                results.add(workers.submit(() -> {
+                    written.addAndGet(writeChunk(brands, settings, current, first, last));
+                    log.info("Chunk {} done, {}/{}", current, completed.incrementAndGet(), chunks);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(ADVANCE_SEQUENCE);
+            // Paging estimates and the planner's index choices depend on fresh statistics
+            statement.execute("ANALYZE car_brand");
+            // The rows skipped the change log, so subscribers are told to reload instead
+            statement.execute("SELECT log_car_brand_reset()");
+        }
+        log.info("Wrote {} car brands", written.get());
+        return written.get();
+    }
+
+    private Set<Long> doneChunks(CarBrandProperties.Generator settings) throws SQLException {
+        Set<Long> done = new HashSet<>();
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_PROGRESS);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(FIND_PROGRESS)) {
+                while (resultSet.next()) {
+                    long seed = resultSet.getLong("seed");
+                    int chunkSize = resultSet.getInt("chunk_size");
+                    // Another dataset would reuse the same ids, and resuming with other chunks would skip rows
+                    if (seed != settings.getSeed() || chunkSize != settings.getChunkSize()) {
+                        throw new IllegalStateException("car_brand already holds rows generated with seed " + seed
+                                + " in chunks of " + chunkSize + ", generate into an empty database instead");
+                    }
+                    done.add(resultSet.getLong("chunk"));
+                }
+            }
+        }
+        return done;
+    }
+
+    private long writeChunk(SyntheticCarBrands brands, CarBrandProperties.Generator settings, long chunk,
+                            long first, long last) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    // The progress row commits with the data, so losing the commit loses both and the chunk is redone
+                    statement.execute("SET LOCAL synchronous_commit = off");
+                    // Millions of synthetic rows are not news for change feed subscribers
+                    statement.execute("SET LOCAL infraops.skip_change_log = on");
+                }
+                CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_ROWS);
+                try {
+                    StringBuilder buffer = new StringBuilder(ROWS_PER_WRITE * 96);
+                    for (long index = first; index < last; index++) {
+                        brands.appendCsv(index, settings.getFirstId(), buffer);
+                        if ((index - first + 1) % ROWS_PER_WRITE == 0 || index == last - 1) {
+                            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                            copy.writeToCopy(bytes, 0, bytes.length);
+                            buffer.setLength(0);
+                        }
+                    }
+                    copy.endCopy();
+                } finally {
+                    if (copy.isActive()) {
+                        copy.cancelCopy();
+                    }
+                }
+                try (PreparedStatement statement = connection.prepareStatement(MARK_DONE)) {
+                    statement.setLong(1, settings.getSeed());
+                    statement.setInt(2, settings.getChunkSize());
+                    statement.setLong(3, chunk);
+                    statement.setLong(4, last - first);
+                    statement.executeUpdate();
+                }
+                connection.commit();
+                return last - first;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
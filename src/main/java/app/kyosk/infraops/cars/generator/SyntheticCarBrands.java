@@ -0,0 +1,103 @@
+package app.kyosk.infraops.cars.generator;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * The synthetic car brand at a given position of a generated dataset. Every value is derived from
+ * the seed and the position alone, so any range of rows can be produced on its own, by any thread
+ * and in any order, and a seed always yields the same dataset.
+ */
+final class SyntheticCarBrands {
+
+    // Countries weighted as in the 52 seed brands of the first migration
+    private static final String[] COUNTRIES = {
+            "United States", "Japan", "Italy", "Germany", "United Kingdom", "China", "France",
+            "South Korea", "Sweden", "Malaysia", "Czech Republic", "Spain", "Romania"};
+    private static final int[] COUNTRY_WEIGHTS = {9, 7, 6, 5, 5, 5, 4, 3, 3, 2, 1, 1, 1};
+    private static final String[] SYLLABLES = {
+            "ka", "ro", "ve", "lan", "mi", "to", "sa", "ber", "no", "ta", "ri", "da", "zen", "lo", "qui",
+            "mar", "fe", "gal", "dor", "ny", "ho", "vo", "tes", "ar", "ion", "el", "pa", "sk", "cor", "us"};
+    private static final String[] SUFFIXES = {"", "", "", " Motors", " Automobiles", " Cars", " Auto", " Motor Works"};
+    private static final int FIRST_FOUNDED_YEAR = 1850;
+    private static final int FOUNDED_YEAR_SPAN = 175;
+    private static final LocalDateTime FIRST_CREATED_AT = LocalDateTime.of(2025, 1, 11, 10, 42);
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final String[] COUNTRY_BY_TICKET;
+
+    static {
+        int total = 0;
+        for (int weight : COUNTRY_WEIGHTS) {
+            total += weight;
+        }
+        COUNTRY_BY_TICKET = new String[total];
+        int ticket = 0;
+        for (int i = 0; i < COUNTRIES.length; i++) {
+            for (int j = 0; j < COUNTRY_WEIGHTS[i]; j++) {
+                COUNTRY_BY_TICKET[ticket++] = COUNTRIES[i];
+            }
+        }
+    }
+
+    private final long seed;
+
+    SyntheticCarBrands(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Appends row {@code index} as a CSV record of
+     * {@code id,uuid,name,country_of_origin,founded_year,created_at,updated_at}. Generated names never
+     * need quoting. Ids are {@code firstId + index}.
+     */
+    void appendCsv(long index, long firstId, StringBuilder out) {
+        long state = mix(seed + index * GOLDEN_GAMMA);
+        long uuidHigh = mix(state += GOLDEN_GAMMA);
+        long uuidLow = mix(state += GOLDEN_GAMMA);
+        long nameBits = mix(state += GOLDEN_GAMMA);
+        long other = mix(state + GOLDEN_GAMMA);
+
+        out.append(firstId + index).append(',')
+                .append(new UUID((uuidHigh & ~0xF000L) | 0x4000L, (uuidLow & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L))
+                .append(',');
+        appendName(index, nameBits, out);
+        out.append(',').append(COUNTRY_BY_TICKET[(int) Long.remainderUnsigned(other, COUNTRY_BY_TICKET.length)]).append(',')
+                .append(foundedYear(other >>> 16));
+        String createdAt = FIRST_CREATED_AT.plusSeconds(index).toString();
+        out.append(',').append(createdAt).append(',').append(createdAt).append('\n');
+    }
+
+    /**
+     * Two or three syllables, an optional company suffix and the index in base 36, which is what
+     * keeps 10M names unique without a lookup.
+     */
+    private static void appendName(long index, long bits, StringBuilder out) {
+        int start = out.length();
+        int syllables = 2 + (int) (bits & 1);
+        for (int i = 0; i < syllables; i++) {
+            bits >>>= 5;
+            out.append(SYLLABLES[(int) Long.remainderUnsigned(bits, SYLLABLES.length)]);
+        }
+        out.setCharAt(start, Character.toUpperCase(out.charAt(start)));
+        bits >>>= 5;
+        out.append(SUFFIXES[(int) Long.remainderUnsigned(bits, SUFFIXES.length)])
+                .append(' ')
+                .append(Long.toString(index, 36).toUpperCase(Locale.ROOT));
+    }
+
+    // Mean of two uniform draws: most brands date from around the 1930s, as in the seed, with thin tails
+    private static int foundedYear(long bits) {
+        long first = bits & 0xFFFFFF;
+        long second = (bits >>> 24) & 0xFFFFFF;
+        return FIRST_FOUNDED_YEAR + (int) ((first + second) * FOUNDED_YEAR_SPAN / (2L << 24));
+    }
+
+    // SplitMix64 finalizer: consecutive inputs come out statistically independent
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
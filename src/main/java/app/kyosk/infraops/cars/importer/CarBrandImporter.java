@@ -0,0 +1,179 @@
+package app.kyosk.infraops.cars.importer;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.ImportResult;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeNotifier;
+import app.kyosk.infraops.cars.exception.InvalidImportException;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Loads a CSV upload of {@code name,country_of_origin,founded_year} records into {@code car_brand}.
+ * <p>
+ * The upload is streamed with {@code COPY FROM STDIN} into a transaction-scoped staging table,
+ * validated there in one statement and merged into {@code car_brand} with a single
+ * {@code INSERT ... ON CONFLICT (name)}, so the cost per row is a few set-based passes instead of
+ * a round trip and an entity per row. Invalid records and names repeated later in the upload are
+ * rejected and reported; the rest of the upload still goes in.
+ * <p>
+ * Small imports announce a change per brand like any other write. Larger ones announce a single
+ * reset instead, so an import neither holds a change per row in memory nor floods every replica's
+ * listener with notifications. They also keep their rows out of the change log and leave one RESET
+ * entry there, which tells feed subscribers to re-list.
+ */
+@Component
+@RequiredArgsConstructor
+public class CarBrandImporter {
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMPORARY TABLE car_brand_import (
+                record_number     bigint GENERATED ALWAYS AS IDENTITY,
+                name              text,
+                country_of_origin text,
+                founded_year      text,
+                error             text
+            ) ON COMMIT DROP""";
+    private static final String COPY_STAGING = """
+            COPY car_brand_import (name, country_of_origin, founded_year)
+            FROM STDIN WITH (FORMAT csv, HEADER true)""";
+    // Checks mirror the car_brand columns; of repeated names only the last valid record is kept
+    private static final String VALIDATE_STAGING = """
+            WITH checked AS (
+                SELECT record_number, name, CASE
+                    WHEN name IS NULL OR btrim(name) = '' THEN 'name is required'
+                    WHEN length(name) > 100 THEN 'name is longer than 100 characters'
+                    WHEN country_of_origin IS NULL OR btrim(country_of_origin) = '' THEN 'country_of_origin is required'
+                    WHEN length(country_of_origin) > 100 THEN 'country_of_origin is longer than 100 characters'
+                    WHEN founded_year !~ '^\\s*[+-]?[0-9]{1,9}\\s*$' THEN 'founded_year is not a whole number'
+                END AS error
+                FROM car_brand_import
+            ), ranked AS (
+                SELECT record_number, coalesce(error, CASE
+                    WHEN row_number() OVER (PARTITION BY name, error IS NULL ORDER BY record_number DESC) > 1
+                    THEN 'name appears again in a later record'
+                END) AS error
+                FROM checked
+            )
+            UPDATE car_brand_import i SET error = r.error
+            FROM ranked r
+            WHERE r.record_number = i.record_number AND r.error IS NOT NULL""";
+    // xmax is 0 only on freshly inserted row versions; rows that would not change are skipped. Answers one
+    // row with the counts, and the UUIDs only as far as they may be announced one by one
+    private static final String MERGE_STAGING = """
+            WITH merged AS (
+                INSERT INTO car_brand AS b (name, country_of_origin, founded_year)
+                SELECT name, country_of_origin, founded_year::int
+                FROM car_brand_import
+                WHERE error IS NULL
+                ON CONFLICT (name) DO UPDATE
+                SET country_of_origin = EXCLUDED.country_of_origin,
+                    founded_year = EXCLUDED.founded_year,
+                    updated_at = CURRENT_TIMESTAMP,
+                    version = b.version + 1
+                WHERE (b.country_of_origin, b.founded_year) IS DISTINCT FROM (EXCLUDED.country_of_origin, EXCLUDED.founded_year)
+                RETURNING b.uuid, b.xmax = 0 AS inserted
+            ), numbered AS (
+                SELECT uuid, inserted, row_number() OVER () AS n FROM merged
+            )
+            SELECT count(*) FILTER (WHERE inserted) AS inserted,
+                   count(*) FILTER (WHERE NOT inserted) AS updated,
+                   array_agg(uuid) FILTER (WHERE inserted AND n <= ?) AS inserted_uuids,
+                   array_agg(uuid) FILTER (WHERE NOT inserted AND n <= ?) AS updated_uuids
+            FROM numbered""";
+    private static final String COUNT_REJECTED = "SELECT count(*) FROM car_brand_import WHERE error IS NOT NULL";
+    // Transaction-scoped, so only this import's merge skips the change log trigger
+    private static final String SKIP_CHANGE_LOG = "SELECT set_config('infraops.skip_change_log', 'on', true)";
+    private static final String LOG_RESET = "SELECT log_car_brand_reset()";
+    private static final String FIND_REJECTIONS = """
+            SELECT record_number, error FROM car_brand_import
+            WHERE error IS NOT NULL
+            ORDER BY record_number
+            LIMIT ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CarBrandChangeNotifier changeNotifier;
+    private final CarBrandProperties properties;
+
+    @Transactional
+    public ImportResult importCsv(InputStream csv) {
+        jdbcTemplate.execute(CREATE_STAGING);
+        long copied = copy(csv);
+        jdbcTemplate.execute("ANALYZE car_brand_import");
+        jdbcTemplate.update(VALIDATE_STAGING);
+        Long rejected = jdbcTemplate.queryForObject(COUNT_REJECTED, Long.class);
+        long rejectedCount = rejected == null ? 0 : rejected;
+
+        int maxAnnouncedChanges = properties.getCsvImport().getMaxAnnouncedChanges();
+        // Decided on the valid records before merging, as the log has to be skipped while the rows are written
+        boolean bulk = copied - rejectedCount > maxAnnouncedChanges;
+        if (bulk) {
+            jdbcTemplate.execute(SKIP_CHANGE_LOG);
+        }
+        List<CarBrandChange> changes = new ArrayList<>();
+        long[] counts = jdbcTemplate.queryForObject(MERGE_STAGING, (rs, rowNum) -> {
+            addChanges(changes, rs.getArray("inserted_uuids"), CarBrandChange::created);
+            addChanges(changes, rs.getArray("updated_uuids"), CarBrandChange::updated);
+            return new long[]{rs.getLong("inserted"), rs.getLong("updated")};
+        }, maxAnnouncedChanges, maxAnnouncedChanges);
+        long inserted = counts[0];
+        long updated = counts[1];
+
+        List<ImportResult.Rejection> rejections = rejectedCount == 0 ? List.of() : jdbcTemplate.query(
+                FIND_REJECTIONS,
+                (rs, rowNum) -> new ImportResult.Rejection(rs.getLong("record_number"), rs.getString("error")),
+                properties.getCsvImport().getMaxReportedRejections());
+
+        if (bulk) {
+            jdbcTemplate.execute(LOG_RESET);
+            changeNotifier.publishReset();
+        } else {
+            changeNotifier.publishAll(changes);
+        }
+        return new ImportResult(inserted, updated, copied - rejectedCount - inserted - updated, rejectedCount, rejections);
+    }
+
+    private static void addChanges(List<CarBrandChange> changes, Array uuids, Function<UUID, CarBrandChange> change)
+            throws SQLException {
+        if (uuids != null) {
+            for (UUID uuid : (UUID[]) uuids.getArray()) {
+                changes.add(change.apply(uuid));
+            }
+        }
+    }
+
+    private long copy(InputStream csv) {
+        try {
+            Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+                try {
+                    return con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING, csv);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return copied == null ? 0 : copied;
+        } catch (DataAccessException e) {
+            // Class 22 is PostgreSQL's data exception class: malformed CSV, wrong column count, bad encoding
+            if (e.getMostSpecificCause() instanceof SQLException sqlException
+                    && sqlException.getSQLState() != null && sqlException.getSQLState().startsWith("22")) {
+                throw new InvalidImportException("Could not read the CSV upload: " + sqlException.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+}
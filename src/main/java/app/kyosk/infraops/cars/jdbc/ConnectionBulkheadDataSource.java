@@ -0,0 +1,119 @@
+package app.kyosk.infraops.cars.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the connections in use at {@code maxConcurrentCalls}, taking a permit when a connection is
+ * handed out and returning it when the connection is closed. With virtual threads Tomcat no longer
+ * limits concurrency itself, so the cap sits where the scarce resource is: requests answered from
+ * the caches or writing a response to a slow client hold no permit. A caller that gets none within
+ * {@code maxWait} fails with {@link SQLTransientConnectionException}, the same exception Hikari
+ * throws when its own pool runs dry, which the web layer turns into 503.
+ */
+public class ConnectionBulkheadDataSource extends DelegatingDataSource {
+
+    public static final String WAIT_TIMER = "car_brands.bulkhead.wait";
+    public static final String REJECTED_COUNTER = "car_brands.bulkhead.rejected";
+    public static final String AVAILABLE_GAUGE = "car_brands.bulkhead.available";
+
+    private final Semaphore permits;
+    private final Duration maxWait;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public ConnectionBulkheadDataSource(DataSource target, int maxConcurrentCalls, Duration maxWait, MeterRegistry registry) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.maxWait = maxWait;
+        this.waitTimer = Timer.builder(WAIT_TIMER)
+                .description("Time spent waiting for a bulkhead permit before taking a connection")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejectedCounter = Counter.builder(REJECTED_COUNTER)
+                .description("Connection requests turned away because no permit freed up in time")
+                .register(registry);
+        Gauge.builder(AVAILABLE_GAUGE, permits, Semaphore::availablePermits)
+                .description("Bulkhead permits currently free")
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return guarded(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return guarded(() -> super.getConnection(username, password));
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new SQLTransientConnectionException("No connection free within " + maxWait);
+        }
+    }
+
+    private Connection guarded(ConnectionSource source) throws SQLException {
+        Connection connection;
+        try {
+            connection = source.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionBulkheadDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    // JDBC allows closing twice, the permit goes back only once
+                    if (!method.getName().equals("close") || !released.compareAndSet(false, true)) {
+                        return invoke(connection, method, args);
+                    }
+                    try {
+                        return invoke(connection, method, args);
+                    } finally {
+                        permits.release();
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+}
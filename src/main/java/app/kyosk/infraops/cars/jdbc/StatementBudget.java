@@ -0,0 +1,21 @@
+package app.kyosk.infraops.cars.jdbc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The most SQL statements one request to the annotated handler may run, counted on the JDBC
+ * connection. Handlers whose work grows with the request body leave it off; they are still counted.
+ *
+ * @see StatementBudgetInterceptor
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+
+    int value();
+}
@@ -0,0 +1,80 @@
+package app.kyosk.infraops.cars.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Counts the SQL statements of every handler call and records them per handler. A handler that runs
+ * more than its {@link StatementBudget} is logged and counted, which is how an N+1 query shows up;
+ * with {@code failOnOverrun} the offending statement throws instead, so tests fail on the spot.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String STATEMENTS = "car_brands.statements";
+    public static final String OVER_BUDGET = "car_brands.statements.over_budget";
+
+    private static final String SCOPE_ATTRIBUTE = StatementBudgetInterceptor.class.getName() + ".scope";
+
+    private final MeterRegistry registry;
+    private final boolean failOnOverrun;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            StatementBudget budget = method.getMethodAnnotation(StatementBudget.class);
+            request.setAttribute(SCOPE_ATTRIBUTE, StatementCounter.open(handlerName(method),
+                    budget != null ? budget.value() : -1, failOnOverrun));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // Streaming bodies are written on another thread and no longer counted
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof StatementCounter.Scope scope) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            scope.close();
+            record(scope);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof StatementCounter.Scope scope) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            scope.close();
+            record(scope);
+        }
+    }
+
+    private void record(StatementCounter.Scope scope) {
+        DistributionSummary.builder(STATEMENTS)
+                .description("SQL statements run per request")
+                .tag("handler", scope.name())
+                .register(registry)
+                .record(scope.count());
+        if (scope.isOverBudget()) {
+            log.warn("{} ran {} SQL statements, its budget is {}", scope.name(), scope.count(), scope.budget());
+            Counter.builder(OVER_BUDGET)
+                    .description("Requests that ran more SQL statements than their handler's budget")
+                    .tag("handler", scope.name())
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    private static String handlerName(HandlerMethod method) {
+        return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+    }
+}
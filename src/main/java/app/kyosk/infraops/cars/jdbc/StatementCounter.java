@@ -0,0 +1,82 @@
+package app.kyosk.infraops.cars.jdbc;
+
+import app.kyosk.infraops.cars.exception.StatementBudgetExceededException;
+
+/**
+ * Counts the SQL statements run on the current thread between {@link #open} and closing the
+ * returned scope. Statements outside a scope are not counted. Every request runs on its own
+ * (virtual) thread, so a thread-local scope is a request scope.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    /**
+     * Starts counting for {@code name}. With {@code failFast} the statement that goes over
+     * {@code budget} throws {@link StatementBudgetExceededException} instead of running; a negative
+     * budget is never exceeded.
+     */
+    public static Scope open(String name, int budget, boolean failFast) {
+        Scope scope = new Scope(name, budget, failFast, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    // Called by StatementCountingDataSource before each statement is sent
+    static void beforeStatement() {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        scope.count++;
+        if (scope.failFast && scope.isOverBudget()) {
+            throw new StatementBudgetExceededException(scope.name, scope.budget);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final int budget;
+        private final boolean failFast;
+        private final Scope outer;
+        private int count;
+
+        private Scope(String name, int budget, boolean failFast, Scope outer) {
+            this.name = name;
+            this.budget = budget;
+            this.failFast = failFast;
+            this.outer = outer;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int budget() {
+            return budget;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public boolean isOverBudget() {
+            return budget >= 0 && count > budget;
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (outer == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(outer);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package app.kyosk.infraops.cars.repository;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.exception.InvalidFieldSelectionException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The properties a car brand response can be narrowed to with {@code ?fields=uuid,name}, together
+ * with the column each one is read from. As with the sort fields, only these columns are ever put
+ * into a hand-written select list.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CarBrandField {
+    UUID("uuid", "uuid", CarBrandDTO::uuid),
+    NAME("name", "name", CarBrandDTO::name),
+    COUNTRY_OF_ORIGIN("countryOfOrigin", "country_of_origin", CarBrandDTO::countryOfOrigin),
+    FOUNDED_YEAR("foundedYear", "founded_year", CarBrandDTO::foundedYear),
+    CREATED_AT("createdAt", "created_at", CarBrandDTO::createdAt),
+    UPDATED_AT("updatedAt", "updated_at", CarBrandDTO::updatedAt),
+    VERSION("version", "version", CarBrandDTO::version);
+
+    public static final Set<CarBrandField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CarBrandField.class));
+
+    private final String property;
+    private final String column;
+    private final Function<CarBrandDTO, ?> accessor;
+
+    // null (parameter absent) selects every property, names are the JSON property names
+    public static Set<CarBrandField> parse(String fields) {
+        if (fields == null) {
+            return ALL;
+        }
+        EnumSet<CarBrandField> selected = EnumSet.noneOf(CarBrandField.class);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            selected.add(fromProperty(name)
+                    .orElseThrow(() -> new InvalidFieldSelectionException("Unknown car brand field: " + name)));
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidFieldSelectionException("fields must name at least one car brand field");
+        }
+        return selected;
+    }
+
+    public static Optional<CarBrandField> fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(field -> field.property.equals(property))
+                .findFirst();
+    }
+
+    public static boolean selectsAll(Set<CarBrandField> fields) {
+        return fields.size() == ALL.size();
+    }
+
+    // Select list in declaration order
+    public static String columns(Set<CarBrandField> fields) {
+        return fields.stream().sorted().map(CarBrandField::getColumn).collect(Collectors.joining(", "));
+    }
+
+    public Object valueOf(CarBrandDTO carBrandDTO) {
+        return accessor.apply(carBrandDTO);
+    }
+}
@@ -1,13 +1,56 @@
 package app.kyosk.infraops.cars.repository;
 
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
 import app.kyosk.infraops.cars.entity.CarBrand;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface CarBrandRepository extends JpaRepository<CarBrand, Long> {
-    void deleteByUuid(UUID uuid);
+public interface CarBrandRepository extends JpaRepository<CarBrand, Long>, CarBrandRepositoryCustom {
 
-    Optional<CarBrand> findByUuid(UUID uuid);
+    String DTO_PROJECTION = "select new app.kyosk.infraops.cars.dto.CarBrandDTO(b.uuid, b.name, b.countryOfOrigin, "
+            + "b.foundedYear, b.createdAt, b.updatedAt, b.version) from CarBrand b";
+
+    String SUGGESTION_PROJECTION = "select new app.kyosk.infraops.cars.dto.CarBrandSuggestion(b.uuid, b.name) from CarBrand b";
+
+    // A single DELETE statement, where the derived delete would load the entity and remove it
+    @Modifying
+    @Query("delete from CarBrand b where b.uuid = :uuid")
+    int deleteByUuid(UUID uuid);
+
+    // Locked, so the version checked against each batch item stays current until the batch commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<CarBrand> findAllByUuidIn(Collection<UUID> uuids);
+
+    List<CarBrand> findAllByNameIn(Collection<String> names);
+
+    // Version lookup for conditional requests, reads a single column
+    @Query("select b.version from CarBrand b where b.uuid = :uuid")
+    Optional<Long> findVersionByUuid(UUID uuid);
+
+    // Read paths project straight into the DTO: no managed entities and no dirty-checking snapshots
+    @Query(DTO_PROJECTION)
+    List<CarBrandDTO> findAllDtos();
+
+    @Query(DTO_PROJECTION + " where b.uuid = :uuid")
+    Optional<CarBrandDTO> findDtoByUuid(UUID uuid);
+
+    // Feeds the in-memory search index a page at a time, two columns per brand, in uuid order so each page starts after the last
+    @Query(SUGGESTION_PROJECTION + " order by b.uuid")
+    List<CarBrandSuggestion> findSuggestions(Pageable pageable);
+
+    @Query(SUGGESTION_PROJECTION + " where b.uuid > :after order by b.uuid")
+    List<CarBrandSuggestion> findSuggestionsAfter(UUID after, Pageable pageable);
+
+    @Query(SUGGESTION_PROJECTION + " where b.uuid in :uuids")
+    List<CarBrandSuggestion> findSuggestionsByUuidIn(Collection<UUID> uuids);
 }
@@ -0,0 +1,79 @@
+package app.kyosk.infraops.cars.repository;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandFilter;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.util.PageCursor;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface CarBrandRepositoryCustom {
+
+    /**
+     * Reads up to {@code limit} rows matching {@code filter}, ordered by {@code field} (ties broken by
+     * id) in the given direction, starting strictly after {@code position}, or from the start when it
+     * is {@code null}. Only the {@code fields} columns are read, plus the sort column.
+     */
+    List<KeysetRow> findKeyset(CarBrandSortField field, Sort.Direction direction, PageCursor position,
+                               CarBrandFilter filter, int limit, Set<CarBrandField> fields);
+
+    /**
+     * Reads up to {@code limit} rows matching {@code filter} after skipping {@code offset} of them,
+     * ordered by {@code sort} with ties broken by id. Only {@link CarBrandSortField} properties may be
+     * sorted by, and only the {@code fields} columns are read; the other properties are left null.
+     */
+    List<CarBrandDTO> findPage(CarBrandFilter filter, Sort sort, long offset, int limit, Set<CarBrandField> fields);
+
+    long countMatching(CarBrandFilter filter);
+
+    /**
+     * Row count as last recorded by PostgreSQL's planner statistics ({@code pg_class.reltuples}).
+     * Returns a negative value when the table has never been vacuumed or analyzed.
+     */
+    long estimateCount();
+
+    // Moves with every committed statement that writes car_brand: the base counter plus the deltas not folded in yet
+    long findRevision();
+
+    // Adds the pending deltas to the base counter, which leaves the revision where it was
+    void foldRevisionDeltas();
+
+    /**
+     * Hands every row to {@code consumer} while reading it from a forward-only cursor, {@code fetchSize}
+     * rows per round trip. Must run inside a transaction, otherwise PostgreSQL materializes the whole
+     * result set at once. Only the {@code fields} columns are read.
+     */
+    void streamAll(int fetchSize, Set<CarBrandField> fields, Consumer<CarBrandDTO> consumer);
+
+    // Reads only the selected columns of one brand, the other properties are left null
+    Optional<CarBrandDTO> findFieldsByUuid(UUID uuid, Set<CarBrandField> fields);
+
+    /**
+     * Writes {@code columns} (column name to value) of one brand and bumps its version in a single
+     * {@code UPDATE ... RETURNING}. With {@code expectedVersion} set the row is only written while it
+     * is still at that version. Empty when no row was written.
+     */
+    Optional<CarBrandDTO> updateColumns(UUID uuid, Map<String, Object> columns, Long expectedVersion);
+
+    // Reads every listed brand that exists in one statement, in no particular order
+    List<CarBrandDTO> findAllDtosByUuid(Collection<UUID> uuids);
+
+    // Deletes every listed brand in one statement and returns the UUIDs that were actually deleted
+    List<UUID> deleteAllByUuid(Collection<UUID> uuids);
+
+    /**
+     * Names containing {@code query} or similar to it by trigrams, on the lower-cased name. Prefix
+     * matches come first, then the rest by similarity. {@code query} must already be lower case.
+     */
+    List<CarBrandSuggestion> searchByName(String query, int limit);
+
+    // Sends pending batched writes and detaches everything, so large batches do not pile up in memory
+    void flushAndClear();
+}
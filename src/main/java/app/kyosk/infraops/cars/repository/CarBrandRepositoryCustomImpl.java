@@ -0,0 +1,287 @@
+package app.kyosk.infraops.cars.repository;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandFilter;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.util.PageCursor;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+class CarBrandRepositoryCustomImpl implements CarBrandRepositoryCustom {
+
+    private static final String COLUMNS = "id, uuid, name, country_of_origin, founded_year, created_at, updated_at, version";
+    private static final String SELECT_COLUMNS = "SELECT " + COLUMNS + " FROM car_brand";
+    private static final String COUNT = "SELECT count(*) FROM car_brand";
+
+    static final RowMapper<CarBrandDTO> DTO_ROW_MAPPER = (rs, rowNum) -> new CarBrandDTO(
+            rs.getObject("uuid", UUID.class),
+            rs.getString("name"),
+            rs.getString("country_of_origin"),
+            rs.getObject("founded_year", Integer.class),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class),
+            rs.getLong("version")
+    );
+
+    private static final String ESTIMATE_COUNT =
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = 'car_brand'::regclass";
+
+    private static final String FIND_ALL_BY_UUID = SELECT_COLUMNS + " WHERE uuid = ANY(?)";
+
+    private static final String DELETE_ALL_BY_UUID = "DELETE FROM car_brand WHERE uuid = ANY(?) RETURNING uuid";
+
+    private static final String FIND_REVISION =
+            "SELECT revision + (SELECT count(*) FROM car_brand_revision_delta) FROM car_brand_revision WHERE id = 1";
+    // One statement, so a reader sees the deltas either still counted or already in the base, never both or neither
+    private static final String FOLD_REVISION_DELTAS = """
+            WITH folded AS (DELETE FROM car_brand_revision_delta RETURNING id)
+            UPDATE car_brand_revision SET revision = revision + (SELECT count(*) FROM folded)
+            WHERE id = 1 AND EXISTS (SELECT 1 FROM folded)""";
+
+    // Both predicates are served by the trigram index on lower(name)
+    private static final String SEARCH_BY_NAME = "SELECT uuid, name FROM car_brand"
+            + " WHERE lower(name) LIKE :infix ESCAPE '\\' OR lower(name) % :query"
+            + " ORDER BY lower(name) LIKE :prefix ESCAPE '\\' DESC, similarity(lower(name), :query) DESC, name"
+            + " LIMIT :limit";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public List<KeysetRow> findKeyset(CarBrandSortField field, Sort.Direction direction, PageCursor position,
+                                      CarBrandFilter filter, int limit, Set<CarBrandField> fields) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        List<String> predicates = filterPredicates(filter, params);
+        if (position != null) {
+            predicates.add(seekPredicate(field, direction, position.value() == null));
+            params.addValue("id", position.id());
+            params.addValue("value", position.value());
+        }
+        // The id and the sort column are read whatever the selection, the page's cursors are made of them
+        Set<CarBrandField> read = EnumSet.copyOf(fields);
+        CarBrandField.fromProperty(field.getProperty()).ifPresent(read::add);
+        StringBuilder sql = new StringBuilder(CarBrandField.selectsAll(read) ? SELECT_COLUMNS
+                : "SELECT id, " + CarBrandField.columns(read) + " FROM car_brand");
+        appendWhere(sql, predicates);
+        String order = direction.isAscending() ? " ASC" : " DESC";
+        sql.append(" ORDER BY ");
+        if (field != CarBrandSortField.ID) {
+            sql.append(field.getColumn()).append(order).append(", ");
+        }
+        sql.append("id").append(order).append(" LIMIT :limit");
+        RowMapper<CarBrandDTO> rowMapper = dtoRowMapper(read);
+        return jdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new KeysetRow(rs.getLong("id"), rowMapper.mapRow(rs, rowNum)));
+    }
+
+    @Override
+    public List<CarBrandDTO> findPage(CarBrandFilter filter, Sort sort, long offset, int limit, Set<CarBrandField> fields) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit).addValue("offset", offset);
+        StringBuilder sql = new StringBuilder(select(fields));
+        appendWhere(sql, filterPredicates(filter, params));
+        sql.append(" ORDER BY ");
+        // The id tie-breaker follows the last direction so the composite (column, id) indexes can be scanned either way
+        Sort.Direction tieBreaker = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            CarBrandSortField field = CarBrandSortField.fromProperty(order.getProperty())
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported sort property: " + order.getProperty()));
+            if (field == CarBrandSortField.ID) {
+                tieBreaker = order.getDirection();
+                break;
+            }
+            sql.append(field.getColumn()).append(order.isAscending() ? " ASC, " : " DESC, ");
+            tieBreaker = order.getDirection();
+        }
+        sql.append("id ").append(tieBreaker.name()).append(" LIMIT :limit OFFSET :offset");
+        return jdbcTemplate.query(sql.toString(), params, dtoRowMapper(fields));
+    }
+
+    @Override
+    public long countMatching(CarBrandFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(COUNT);
+        appendWhere(sql, filterPredicates(filter, params));
+        Long count = jdbcTemplate.queryForObject(sql.toString(), params, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long estimateCount() {
+        Long estimate = jdbcTemplate.getJdbcTemplate().queryForObject(ESTIMATE_COUNT, Long.class);
+        return estimate == null ? -1 : estimate;
+    }
+
+    @Override
+    public long findRevision() {
+        Long revision = jdbcTemplate.getJdbcTemplate().queryForObject(FIND_REVISION, Long.class);
+        return revision == null ? 0 : revision;
+    }
+
+    @Override
+    public void foldRevisionDeltas() {
+        jdbcTemplate.getJdbcTemplate().update(FOLD_REVISION_DELTAS);
+    }
+
+    @Override
+    public void streamAll(int fetchSize, Set<CarBrandField> fields, Consumer<CarBrandDTO> consumer) {
+        RowMapper<CarBrandDTO> rowMapper = dtoRowMapper(fields);
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement statement = con.prepareStatement(select(fields) + " ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public Optional<CarBrandDTO> findFieldsByUuid(UUID uuid, Set<CarBrandField> fields) {
+        return jdbcTemplate.query(select(fields) + " WHERE uuid = :uuid", new MapSqlParameterSource("uuid", uuid),
+                dtoRowMapper(fields)).stream().findFirst();
+    }
+
+    @Override
+    public Optional<CarBrandDTO> updateColumns(UUID uuid, Map<String, Object> columns, Long expectedVersion) {
+        MapSqlParameterSource params = new MapSqlParameterSource("uuid", uuid);
+        StringBuilder sql = new StringBuilder("UPDATE car_brand SET ");
+        // Column names come from the service, never from the request
+        columns.forEach((column, value) -> {
+            sql.append(column).append(" = :").append(column).append(", ");
+            params.addValue(column, value);
+        });
+        sql.append("version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE uuid = :uuid");
+        if (expectedVersion != null) {
+            sql.append(" AND version = :version");
+            params.addValue("version", expectedVersion);
+        }
+        sql.append(" RETURNING ").append(COLUMNS);
+        return jdbcTemplate.query(sql.toString(), params, DTO_ROW_MAPPER).stream().findFirst();
+    }
+
+    @Override
+    public List<CarBrandDTO> findAllDtosByUuid(Collection<UUID> uuids) {
+        // Same single array parameter as the batch delete, served by the unique index on uuid
+        return jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement statement = con.prepareStatement(FIND_ALL_BY_UUID);
+            statement.setArray(1, con.createArrayOf("uuid", uuids.toArray()));
+            return statement;
+        }, DTO_ROW_MAPPER);
+    }
+
+    @Override
+    public List<UUID> deleteAllByUuid(Collection<UUID> uuids) {
+        // One array parameter, so the statement is the same whatever the number of UUIDs
+        return jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement statement = con.prepareStatement(DELETE_ALL_BY_UUID);
+            statement.setArray(1, con.createArrayOf("uuid", uuids.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getObject("uuid", UUID.class));
+    }
+
+    @Override
+    public List<CarBrandSuggestion> searchByName(String query, int limit) {
+        String literal = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        MapSqlParameterSource params = new MapSqlParameterSource("query", query)
+                .addValue("infix", "%" + literal + "%")
+                .addValue("prefix", literal + "%")
+                .addValue("limit", limit);
+        return jdbcTemplate.query(SEARCH_BY_NAME, params,
+                (rs, rowNum) -> new CarBrandSuggestion(rs.getObject("uuid", UUID.class), rs.getString("name")));
+    }
+
+    @Override
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String select(Set<CarBrandField> fields) {
+        return CarBrandField.selectsAll(fields) ? SELECT_COLUMNS : "SELECT " + CarBrandField.columns(fields) + " FROM car_brand";
+    }
+
+    // Reads only the selected columns, the other properties of the DTO stay null
+    private static RowMapper<CarBrandDTO> dtoRowMapper(Set<CarBrandField> fields) {
+        if (CarBrandField.selectsAll(fields)) {
+            return DTO_ROW_MAPPER;
+        }
+        boolean uuid = fields.contains(CarBrandField.UUID);
+        boolean name = fields.contains(CarBrandField.NAME);
+        boolean countryOfOrigin = fields.contains(CarBrandField.COUNTRY_OF_ORIGIN);
+        boolean foundedYear = fields.contains(CarBrandField.FOUNDED_YEAR);
+        boolean createdAt = fields.contains(CarBrandField.CREATED_AT);
+        boolean updatedAt = fields.contains(CarBrandField.UPDATED_AT);
+        boolean version = fields.contains(CarBrandField.VERSION);
+        return (rs, rowNum) -> new CarBrandDTO(
+                uuid ? rs.getObject("uuid", UUID.class) : null,
+                name ? rs.getString("name") : null,
+                countryOfOrigin ? rs.getString("country_of_origin") : null,
+                foundedYear ? rs.getObject("founded_year", Integer.class) : null,
+                createdAt ? rs.getObject("created_at", LocalDateTime.class) : null,
+                updatedAt ? rs.getObject("updated_at", LocalDateTime.class) : null,
+                version ? rs.getLong("version") : null
+        );
+    }
+
+    // Plain comparisons on the bare columns, so they can be matched against the composite indexes
+    private static List<String> filterPredicates(CarBrandFilter filter, MapSqlParameterSource params) {
+        List<String> predicates = new ArrayList<>(4);
+        if (filter.countryOfOrigin() != null) {
+            predicates.add("country_of_origin = :countryOfOrigin");
+            params.addValue("countryOfOrigin", filter.countryOfOrigin());
+        }
+        if (filter.foundedYearFrom() != null) {
+            predicates.add("founded_year >= :foundedYearFrom");
+            params.addValue("foundedYearFrom", filter.foundedYearFrom());
+        }
+        if (filter.foundedYearTo() != null) {
+            predicates.add("founded_year <= :foundedYearTo");
+            params.addValue("foundedYearTo", filter.foundedYearTo());
+        }
+        return predicates;
+    }
+
+    private static void appendWhere(StringBuilder sql, List<String> predicates) {
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+    }
+
+    /**
+     * Rows strictly after the cursor in {@code (column, id)} order. PostgreSQL sorts NULLs last when
+     * ascending and first when descending, so nullable columns need the extra NULL branches; the
+     * row-value comparison itself is what lets the planner seek on the composite index.
+     */
+    private static String seekPredicate(CarBrandSortField field, Sort.Direction direction, boolean nullValue) {
+        boolean ascending = direction.isAscending();
+        String comparator = ascending ? " > " : " < ";
+        if (field == CarBrandSortField.ID) {
+            return "id" + comparator + ":id";
+        }
+        String column = field.getColumn();
+        if (nullValue) {
+            return ascending
+                    ? "(" + column + " IS NULL AND id > :id)"
+                    : "((" + column + " IS NULL AND id < :id) OR " + column + " IS NOT NULL)";
+        }
+        String seek = "(" + column + ", id)" + comparator + "(:value, :id)";
+        return ascending && field.isNullable() ? "(" + seek + " OR " + column + " IS NULL)" : seek;
+    }
+}
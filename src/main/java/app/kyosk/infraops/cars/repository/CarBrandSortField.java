@@ -0,0 +1,45 @@
+package app.kyosk.infraops.cars.repository;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Whitelist of the properties a car brand listing can be ordered by, together with the column
+ * backing each one. Only these columns are ever concatenated into hand-written SQL.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CarBrandSortField {
+    ID("id", "id", false, Long::valueOf, null),
+    NAME("name", "name", false, Function.identity(), CarBrandDTO::name),
+    COUNTRY_OF_ORIGIN("countryOfOrigin", "country_of_origin", false, Function.identity(), CarBrandDTO::countryOfOrigin),
+    FOUNDED_YEAR("foundedYear", "founded_year", true, Integer::valueOf, CarBrandDTO::foundedYear),
+    CREATED_AT("createdAt", "created_at", true, LocalDateTime::parse, CarBrandDTO::createdAt),
+    UPDATED_AT("updatedAt", "updated_at", true, LocalDateTime::parse, CarBrandDTO::updatedAt);
+
+    private final String property;
+    private final String column;
+    private final boolean nullable;
+    private final Function<String, ?> parser;
+    private final Function<CarBrandDTO, ?> accessor;
+
+    public static Optional<CarBrandSortField> fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(field -> field.property.equals(property))
+                .findFirst();
+    }
+
+    public Object parse(String raw) {
+        return parser.apply(raw);
+    }
+
+    public Object valueOf(KeysetRow row) {
+        return this == ID ? row.id() : accessor.apply(row.brand());
+    }
+}
@@ -0,0 +1,10 @@
+package app.kyosk.infraops.cars.repository;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+
+/**
+ * A row read by a keyset query. The surrogate {@code id} is not part of the public DTO but is
+ * needed as the tie-breaker of every cursor.
+ */
+public record KeysetRow(long id, CarBrandDTO brand) {
+}
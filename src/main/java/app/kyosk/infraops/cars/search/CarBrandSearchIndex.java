@@ -0,0 +1,313 @@
+package app.kyosk.infraops.cars.search;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeFeedReset;
+import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory autocomplete index of car brand names: a sorted map from the folded name (lower case,
+ * accents stripped) to the brand, so a prefix is a range lookup. Typos are covered by also looking
+ * up every prefix one edit away from the query (deletion, insertion, substitution, transposition),
+ * which stays a few hundred range lookups however many brands there are.
+ * <p>
+ * The index is loaded a page at a time when the application is ready and reloaded on every
+ * {@link CarBrandChangeFeedReset}; each {@link CarBrandChange} re-reads only the changed brands. Writes
+ * that announce no change are caught by a periodic reconcile, which reloads when the table revision
+ * moved since the last load. All loading happens on one background thread so request threads never
+ * wait for it, and a change seen while a reload runs is applied after it.
+ * <p>
+ * Past {@code max-indexed-brands} the index is dropped rather than kept partial, and searches go to
+ * the database like they do before the first load.
+ */
+@Slf4j
+@Component
+public class CarBrandSearchIndex implements DisposableBean {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // Sorts before every character a folded name can contain, so the UUID suffix stays inside the name's prefix range
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final char PREFIX_END = '\uffff';
+    private static final int LOAD_PAGE_SIZE = 5_000;
+
+    private final CarBrandRepository carBrandRepository;
+    private final CarBrandProperties.Search settings;
+    private final Executor updater;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // null until the first load finished, and while the table is over budget
+    private volatile Names names;
+    // Only touched by the updater thread
+    private Long loadedRevision;
+
+    @Autowired
+    public CarBrandSearchIndex(CarBrandRepository carBrandRepository, CarBrandProperties properties) {
+        this(carBrandRepository, properties.getSearch(), Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("car-brand-search-index").daemon().factory()));
+    }
+
+    CarBrandSearchIndex(CarBrandRepository carBrandRepository, CarBrandProperties.Search settings, Executor updater) {
+        this.carBrandRepository = carBrandRepository;
+        this.settings = settings;
+        this.updater = updater;
+    }
+
+    /**
+     * Brands whose name starts with the query, then, when that leaves room and the query has at
+     * least {@code typoMinLength} letters, the ones one typo away; each group in name order. Empty
+     * while the index has not been loaded yet.
+     */
+    public Optional<List<CarBrandSuggestion>> search(String query, int limit, int typoMinLength) {
+        Names current = names;
+        if (current == null) {
+            return Optional.empty();
+        }
+        String prefix = fold(query);
+        Map<UUID, CarBrandSuggestion> hits = new LinkedHashMap<>();
+        current.collect(prefix, limit, hits);
+        if (hits.size() < limit && prefix.length() >= typoMinLength) {
+            TreeMap<String, CarBrandSuggestion> near = new TreeMap<>();
+            for (String variant : current.oneEditAway(prefix)) {
+                current.collect(variant, limit, near, hits.keySet());
+            }
+            near.values().stream().limit(limit - hits.size()).forEach(hit -> hits.put(hit.uuid(), hit));
+        }
+        return Optional.of(List.copyOf(hits.values()));
+    }
+
+    public boolean isLoaded() {
+        return names != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+        if (updater instanceof ScheduledExecutorService scheduler) {
+            long interval = settings.getReconcileInterval().toMillis();
+            scheduler.scheduleWithFixedDelay(this::reconcile, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @EventListener
+    public void onFeedReset(CarBrandChangeFeedReset reset) {
+        requestRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(CarBrandChange change) {
+        pending.add(change.uuid());
+        updater.execute(this::applyPending);
+    }
+
+    @Override
+    public void destroy() {
+        if (updater instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    static String fold(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    private void requestRebuild() {
+        // A reload that has not started yet will already see everything a second one would
+        if (rebuildQueued.compareAndSet(false, true)) {
+            updater.execute(this::rebuild);
+        }
+    }
+
+    // Runs on the updater thread, after any reload or refresh queued before it
+    void reconcile() {
+        try {
+            if (!Long.valueOf(carBrandRepository.findRevision()).equals(loadedRevision)) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not reconcile the car brand search index", e);
+        }
+    }
+
+    private void rebuild() {
+        rebuildQueued.set(false);
+        // Changes from here on are read again after the reload, the ones before are in it
+        pending.clear();
+        try {
+            // Read first, so a write during the load moves the revision past it and the next reconcile reloads
+            long revision = carBrandRepository.findRevision();
+            Names fresh = load();
+            loadedRevision = revision;
+            names = fresh;
+            if (fresh == null) {
+                log.warn("More than {} car brands, searches go to the database", settings.getMaxIndexedBrands());
+            } else {
+                log.info("Loaded {} car brand names into the search index", fresh.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not load the car brand search index, searches keep going to the database", e);
+        }
+    }
+
+    // null when the table holds more brands than the index may
+    private Names load() {
+        int maxIndexedBrands = settings.getMaxIndexedBrands();
+        // The planner's estimate is free and spares reading a page after page only to give up
+        if (carBrandRepository.estimateCount() > maxIndexedBrands) {
+            return null;
+        }
+        Names fresh = new Names();
+        PageRequest page = PageRequest.ofSize(LOAD_PAGE_SIZE);
+        List<CarBrandSuggestion> batch = carBrandRepository.findSuggestions(page);
+        while (!batch.isEmpty()) {
+            batch.forEach(fresh::put);
+            if (fresh.size() > maxIndexedBrands) {
+                return null;
+            }
+            if (batch.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+            batch = carBrandRepository.findSuggestionsAfter(batch.get(batch.size() - 1).uuid(), page);
+        }
+        return fresh;
+    }
+
+    private void applyPending() {
+        Names current = names;
+        if (current == null || pending.isEmpty()) {
+            return;
+        }
+        List<UUID> batch = new ArrayList<>(pending);
+        pending.removeAll(batch);
+        try {
+            Set<UUID> gone = new HashSet<>(batch);
+            for (CarBrandSuggestion suggestion : carBrandRepository.findSuggestionsByUuidIn(batch)) {
+                current.put(suggestion);
+                gone.remove(suggestion.uuid());
+            }
+            gone.forEach(current::remove);
+            if (current.size() > settings.getMaxIndexedBrands()) {
+                names = null;
+                log.warn("More than {} car brands, searches go to the database", settings.getMaxIndexedBrands());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh {} car brands in the search index, reloading it", batch.size(), e);
+            requestRebuild();
+        }
+    }
+
+    private static final class Names {
+
+        private final ConcurrentSkipListMap<String, CarBrandSuggestion> byName = new ConcurrentSkipListMap<>();
+        private final Map<UUID, String> keys = new ConcurrentHashMap<>();
+        // Letters that occur in some name, the only ones worth trying for an insertion or substitution
+        private final Set<Character> alphabet = ConcurrentHashMap.newKeySet();
+
+        // Only ever called from the updater thread
+        void put(CarBrandSuggestion suggestion) {
+            String folded = fold(suggestion.name());
+            String key = folded + KEY_SEPARATOR + suggestion.uuid();
+            String previous = keys.put(suggestion.uuid(), key);
+            if (previous != null && !previous.equals(key)) {
+                byName.remove(previous);
+            }
+            byName.put(key, suggestion);
+            for (int i = 0; i < folded.length(); i++) {
+                alphabet.add(folded.charAt(i));
+            }
+        }
+
+        void remove(UUID uuid) {
+            String key = keys.remove(uuid);
+            if (key != null) {
+                byName.remove(key);
+            }
+        }
+
+        int size() {
+            return keys.size();
+        }
+
+        void collect(String prefix, int limit, Map<UUID, CarBrandSuggestion> hits) {
+            for (CarBrandSuggestion hit : byName.subMap(prefix, true, prefix + PREFIX_END, false).values()) {
+                if (hits.size() >= limit) {
+                    return;
+                }
+                hits.put(hit.uuid(), hit);
+            }
+        }
+
+        void collect(String prefix, int limit, TreeMap<String, CarBrandSuggestion> hits, Set<UUID> exclude) {
+            int taken = 0;
+            for (Map.Entry<String, CarBrandSuggestion> hit : byName.subMap(prefix, true, prefix + PREFIX_END, false).entrySet()) {
+                if (taken++ >= limit) {
+                    return;
+                }
+                if (!exclude.contains(hit.getValue().uuid())) {
+                    hits.put(hit.getKey(), hit.getValue());
+                }
+            }
+        }
+
+        Set<String> oneEditAway(String word) {
+            Set<String> variants = new LinkedHashSet<>();
+            StringBuilder variant = new StringBuilder(word.length() + 1);
+            for (int i = 0; i < word.length(); i++) {
+                variant.setLength(0);
+                variants.add(variant.append(word, 0, i).append(word, i + 1, word.length()).toString());
+                if (i + 1 < word.length()) {
+                    variant.setLength(0);
+                    variants.add(variant.append(word, 0, i).append(word.charAt(i + 1)).append(word.charAt(i))
+                            .append(word, i + 2, word.length()).toString());
+                }
+            }
+            for (char letter : alphabet) {
+                for (int i = 0; i <= word.length(); i++) {
+                    variant.setLength(0);
+                    variants.add(variant.append(word, 0, i).append(letter).append(word, i, word.length()).toString());
+                    if (i < word.length()) {
+                        variant.setLength(0);
+                        variants.add(variant.append(word, 0, i).append(letter).append(word, i + 1, word.length()).toString());
+                    }
+                }
+            }
+            variants.remove(word);
+            // A deleted single letter would match every name
+            variants.remove("");
+            return variants;
+        }
+    }
+}
@@ -1,24 +1,107 @@
 package app.kyosk.infraops.cars.services;
 
+import app.kyosk.infraops.cars.dto.BatchDeleteResult;
+import app.kyosk.infraops.cars.dto.BatchResult;
 import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandFilter;
+import app.kyosk.infraops.cars.dto.CarBrandPatch;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.dto.LookupResult;
+import app.kyosk.infraops.cars.repository.CarBrandField;
+import app.kyosk.infraops.cars.util.KeysetPage;
+import app.kyosk.infraops.cars.util.PageCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface CarBrandService {
 
     CarBrandDTO save(CarBrandDTO carBrandDTO);
 
+    /**
+     * Creates the items without a UUID and updates the ones with one, in a single transaction using
+     * JDBC batches. Invalid items are rejected individually and reported by their index.
+     */
+    BatchResult saveAll(List<CarBrandDTO> carBrandDTOs);
+
     List<CarBrandDTO> findAll();
 
-    Page<CarBrandDTO> findAll(Pageable pageable);
+    /**
+     * The listings below only return brands matching {@code filter} and only sort by
+     * {@link app.kyosk.infraops.cars.repository.CarBrandSortField} properties the filter supports.
+     * They read only the {@code fields} columns, the other properties of the brands are left null.
+     *
+     * @throws app.kyosk.infraops.cars.exception.InvalidPageRequestException for any other sort
+     */
+    Page<CarBrandDTO> findAll(Pageable pageable, CarBrandFilter filter, Set<CarBrandField> fields);
+
+    // Streams every brand to the consumer without collecting them, for exports
+    void exportAll(Set<CarBrandField> fields, Consumer<CarBrandDTO> consumer);
+
+    // Count-free listing: only tells whether a next page exists
+    Slice<CarBrandDTO> findAllSlice(Pageable pageable, CarBrandFilter filter, Set<CarBrandField> fields);
+
+    // Listing whose total comes from planner statistics or a cached count instead of COUNT(*)
+    Page<CarBrandDTO> findAllEstimated(Pageable pageable, CarBrandFilter filter, Set<CarBrandField> fields);
+
+    /**
+     * Cursor-paged listing. At most one of {@code after}/{@code before} may be set; with neither the
+     * first page for the sort of {@code pageable} is returned. The page number of {@code pageable}
+     * is ignored, only its size and sort are used.
+     */
+    KeysetPage<CarBrandDTO> findAllByCursor(Pageable pageable, CarBrandFilter filter, PageCursor after, PageCursor before,
+                                            Set<CarBrandField> fields);
 
     Optional<CarBrandDTO> findByUuid(UUID uuid);
 
+    /**
+     * A brand read for a narrowed response: served from the cache when it is there, otherwise only the
+     * {@code fields} columns and the version are read, and the partial brand is not cached.
+     */
+    Optional<CarBrandDTO> findByUuid(UUID uuid, Set<CarBrandField> fields);
+
+    /**
+     * Resolves many brands at once: cached ones from memory, the rest in one query. Found brands and
+     * missing UUIDs keep the order of the request; repeated UUIDs are answered once.
+     *
+     * @throws app.kyosk.infraops.cars.exception.BatchTooLargeException past the configured maximum
+     */
+    LookupResult findAllByUuid(List<UUID> uuids);
+
+    /**
+     * Autocomplete on the name: case- and accent-insensitive prefix matches first, then names one
+     * typo away. Served from memory; only when that finds nothing does it search the table for
+     * names containing the query or similar to it.
+     *
+     * @throws app.kyosk.infraops.cars.exception.InvalidSearchQueryException for a blank query or a limit out of range
+     */
+    List<CarBrandSuggestion> search(String query, int limit);
+
+    // Changes whenever any car brand is written
+    long currentRevision();
+
+    /**
+     * Replaces name, country and founded year in a single statement. When the DTO carries a version
+     * the write only applies to that version, otherwise it is unconditional.
+     *
+     * @throws app.kyosk.infraops.cars.exception.CarBrandNotFoundException when no brand has the UUID
+     * @throws app.kyosk.infraops.cars.exception.VersionConflictException when the brand has moved on
+     */
     CarBrandDTO update(UUID id, CarBrandDTO updatedCarBrandDTO);
 
+    // Writes only the fields present in the patch, with the same version rules as update
+    CarBrandDTO patch(UUID uuid, CarBrandPatch patch);
+
+    // @throws app.kyosk.infraops.cars.exception.CarBrandNotFoundException when no brand has the UUID
     void deleteByUuid(UUID uuid);
+
+    // Deletes all the listed brands in one statement, UUIDs that matched nothing are reported back
+    BatchDeleteResult deleteAllByUuid(Collection<UUID> uuids);
 }
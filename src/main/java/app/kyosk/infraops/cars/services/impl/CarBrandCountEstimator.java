@@ -0,0 +1,40 @@
+package app.kyosk.infraops.cars.services.impl;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Approximate size of the car_brand table for the estimated paging mode. Planner statistics are
+ * preferred since reading them is a single catalog lookup; until the table has been analyzed an
+ * exact count is taken and reused for the configured TTL.
+ */
+@Component
+@RequiredArgsConstructor
+public class CarBrandCountEstimator {
+
+    private final CarBrandRepository carBrandRepository;
+    private final CarBrandProperties properties;
+
+    private volatile CachedCount cachedCount;
+
+    public long estimate() {
+        long statistics = carBrandRepository.estimateCount();
+        return statistics > 0 ? statistics : cachedCount();
+    }
+
+    private long cachedCount() {
+        long now = System.nanoTime();
+        CachedCount cached = cachedCount;
+        if (cached != null && now - cached.expiresAt() < 0) {
+            return cached.value();
+        }
+        long count = carBrandRepository.count();
+        cachedCount = new CachedCount(count, now + properties.getPaging().getCountCacheTtl().toNanos());
+        return count;
+    }
+
+    private record CachedCount(long value, long expiresAt) {
+    }
+}
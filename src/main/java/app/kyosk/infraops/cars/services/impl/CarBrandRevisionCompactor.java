@@ -0,0 +1,56 @@
+package app.kyosk.infraops.cars.services.impl;
+
+import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds the revision deltas appended by writers into the base counter, so reading the revision
+ * counts a few seconds of writes at most. Writers never touch the base row; replicas folding at the
+ * same time only wait for each other.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CarBrandRevisionCompactor implements SmartLifecycle {
+
+    private static final Duration FOLD_INTERVAL = Duration.ofSeconds(5);
+
+    private final CarBrandRepository carBrandRepository;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("car-brand-revision-compactor").daemon().factory());
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        executor.scheduleWithFixedDelay(this::fold, FOLD_INTERVAL.toMillis(), FOLD_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void fold() {
+        try {
+            carBrandRepository.foldRevisionDeltas();
+        } catch (RuntimeException e) {
+            log.warn("Could not fold the car brand revision deltas", e);
+        }
+    }
+}
@@ -1,71 +1,463 @@
 package app.kyosk.infraops.cars.services.impl;
 
+import app.kyosk.infraops.cars.cache.CarBrandCache;
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.config.MetricsConfig;
+import app.kyosk.infraops.cars.dto.BatchDeleteResult;
+import app.kyosk.infraops.cars.dto.BatchItemResult;
+import app.kyosk.infraops.cars.dto.BatchResult;
 import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandFilter;
+import app.kyosk.infraops.cars.dto.CarBrandPatch;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.dto.LookupResult;
 import app.kyosk.infraops.cars.entity.CarBrand;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeNotifier;
+import app.kyosk.infraops.cars.exception.BatchTooLargeException;
+import app.kyosk.infraops.cars.exception.CarBrandNotFoundException;
+import app.kyosk.infraops.cars.exception.InvalidCarBrandException;
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
+import app.kyosk.infraops.cars.exception.InvalidSearchQueryException;
+import app.kyosk.infraops.cars.exception.VersionConflictException;
+import app.kyosk.infraops.cars.repository.CarBrandField;
 import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import app.kyosk.infraops.cars.repository.CarBrandSortField;
+import app.kyosk.infraops.cars.repository.KeysetRow;
+import app.kyosk.infraops.cars.search.CarBrandSearchIndex;
 import app.kyosk.infraops.cars.services.CarBrandService;
+import app.kyosk.infraops.cars.util.KeysetPage;
+import app.kyosk.infraops.cars.util.PageCursor;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = MetricsConfig.SERVICE_TIMER, description = "Car brand service methods: database access and mapping")
 public class CarBrandServiceImpl implements CarBrandService {
 
     private final CarBrandRepository carBrandRepository;
+    private final CarBrandCountEstimator countEstimator;
+    private final CarBrandCache carBrandCache;
+    private final CarBrandChangeNotifier changeNotifier;
+    private final CarBrandProperties properties;
+    private final CarBrandSearchIndex searchIndex;
 
     @Override
     public CarBrandDTO save(CarBrandDTO carBrandDTO) {
         CarBrand carBrand = mapToEntity(carBrandDTO);
         carBrand = carBrandRepository.save(carBrand);
+        changeNotifier.publish(CarBrandChange.created(carBrand.getUuid()));
         return mapToDTO(carBrand);
     }
 
     @Override
+    @Transactional
+    public BatchResult saveAll(List<CarBrandDTO> carBrandDTOs) {
+        int maxItems = properties.getBatch().getMaxItems();
+        if (carBrandDTOs.size() > maxItems) {
+            throw new BatchTooLargeException("A batch may hold at most " + maxItems + " car brands");
+        }
+        BatchItemResult[] results = new BatchItemResult[carBrandDTOs.size()];
+        Set<String> batchNames = new HashSet<>();
+        Set<UUID> batchUuids = new HashSet<>();
+        int chunkSize = properties.getBatch().getChunkSize();
+        for (int start = 0; start < carBrandDTOs.size(); start += chunkSize) {
+            List<CarBrandDTO> chunk = carBrandDTOs.subList(start, Math.min(start + chunkSize, carBrandDTOs.size()));
+            saveChunk(chunk, start, results, batchNames, batchUuids);
+        }
+
+        List<CarBrandChange> changes = new ArrayList<>();
+        for (BatchItemResult result : results) {
+            switch (result.status()) {
+                case CREATED -> changes.add(CarBrandChange.created(result.carBrand().uuid()));
+                case UPDATED -> {
+                    carBrandCache.invalidate(result.carBrand().uuid());
+                    changes.add(CarBrandChange.updated(result.carBrand().uuid()));
+                }
+                case REJECTED -> { }
+            }
+        }
+        changeNotifier.publishAll(changes);
+        return BatchResult.from(Arrays.asList(results));
+    }
+
+    /**
+     * Writes one chunk: two lookups (existing UUIDs and names) followed by batched inserts and
+     * updates, after which the persistence context is cleared again.
+     */
+    private void saveChunk(List<CarBrandDTO> chunk, int offset, BatchItemResult[] results,
+                           Set<String> batchNames, Set<UUID> batchUuids) {
+        Set<UUID> uuids = chunk.stream().map(CarBrandDTO::uuid).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<String> names = chunk.stream().map(CarBrandDTO::name).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<UUID, CarBrand> existing = uuids.isEmpty() ? Map.of() : carBrandRepository.findAllByUuidIn(uuids).stream()
+                .collect(Collectors.toMap(CarBrand::getUuid, Function.identity()));
+        Map<String, UUID> nameOwners = names.isEmpty() ? Map.of() : carBrandRepository.findAllByNameIn(names).stream()
+                .collect(Collectors.toMap(CarBrand::getName, CarBrand::getUuid));
+
+        List<CarBrand> toSave = new ArrayList<>();
+        List<Integer> savedIndexes = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            CarBrandDTO dto = chunk.get(i);
+            CarBrand target = dto.uuid() == null ? null : existing.get(dto.uuid());
+            String error = validateBatchItem(dto, target, nameOwners.get(dto.name()), batchNames, batchUuids);
+            if (error != null) {
+                results[offset + i] = BatchItemResult.rejected(offset + i, error);
+                continue;
+            }
+            if (target == null) {
+                toSave.add(mapToEntity(dto));
+            } else {
+                applyChanges(target, dto);
+                toSave.add(target);
+            }
+            savedIndexes.add(offset + i);
+        }
+
+        carBrandRepository.saveAll(toSave);
+        carBrandRepository.flushAndClear();
+        for (int i = 0; i < toSave.size(); i++) {
+            int index = savedIndexes.get(i);
+            CarBrandDTO saved = mapToDTO(toSave.get(i));
+            results[index] = chunk.get(index - offset).uuid() == null
+                    ? BatchItemResult.created(index, saved)
+                    : BatchItemResult.updated(index, saved);
+        }
+    }
+
+    private static String validateBatchItem(CarBrandDTO dto, CarBrand target, UUID nameOwner,
+                                            Set<String> batchNames, Set<UUID> batchUuids) {
+        if (dto.name() == null || dto.name().isBlank() || dto.name().length() > 100) {
+            return "name is required and must be at most 100 characters";
+        }
+        if (dto.countryOfOrigin() == null || dto.countryOfOrigin().isBlank() || dto.countryOfOrigin().length() > 100) {
+            return "countryOfOrigin is required and must be at most 100 characters";
+        }
+        if (dto.uuid() != null && target == null) {
+            return "Car brand not found with UUID: " + dto.uuid();
+        }
+        if (dto.uuid() != null && !batchUuids.add(dto.uuid())) {
+            return "Duplicate UUID in batch: " + dto.uuid();
+        }
+        // An item read earlier comes back with its version, which must still be the stored one
+        if (target != null && dto.version() != null && !dto.version().equals(target.getVersion())) {
+            return "Car brand " + dto.uuid() + " was changed since it was read";
+        }
+        if (nameOwner != null && (target == null || !nameOwner.equals(target.getUuid()))) {
+            return "Name already in use: " + dto.name();
+        }
+        if (!batchNames.add(dto.name())) {
+            return "Duplicate name in batch: " + dto.name();
+        }
+        return null;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<CarBrandDTO> findAll() {
-        return carBrandRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .toList();
+        return carBrandRepository.findAllDtos();
     }
 
     @Override
-    public Page<CarBrandDTO> findAll(Pageable pageable) {
-        return carBrandRepository.findAll(pageable).map(this::mapToDTO);
+    @Transactional(readOnly = true)
+    public Page<CarBrandDTO> findAll(Pageable pageable, CarBrandFilter filter, Set<CarBrandField> fields) {
+        List<CarBrandDTO> content = carBrandRepository.findPage(filter, indexedSort(pageable.getSort(), filter),
+                pageable.getOffset(), pageable.getPageSize(), fields);
+        // The count is skipped when the page itself shows where the end is
+        return PageableExecutionUtils.getPage(content, pageable, () -> carBrandRepository.countMatching(filter));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Set<CarBrandField> fields, Consumer<CarBrandDTO> consumer) {
+        carBrandRepository.streamAll(properties.getExport().getFetchSize(), fields, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CarBrandDTO> findAllSlice(Pageable pageable, CarBrandFilter filter, Set<CarBrandField> fields) {
+        int size = pageable.getPageSize();
+        // One extra row tells whether there is a next page, without a COUNT(*)
+        List<CarBrandDTO> content = new ArrayList<>(carBrandRepository.findPage(filter,
+                indexedSort(pageable.getSort(), filter), pageable.getOffset(), size + 1, fields));
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content.removeLast();
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CarBrandDTO> findAllEstimated(Pageable pageable, CarBrandFilter filter, Set<CarBrandField> fields) {
+        Slice<CarBrandDTO> slice = findAllSlice(pageable, filter, fields);
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+        if (!slice.hasNext()) {
+            // The slice already knows this is the last page, so there is nothing left to estimate
+            return new PageImpl<>(slice.getContent(), pageable, seen);
+        }
+        // Planner statistics only cover the whole table, a filtered total is counted on the filter's index instead
+        long total = filter.isEmpty() ? Math.max(countEstimator.estimate(), seen + 1) : carBrandRepository.countMatching(filter);
+        return new PageImpl<>(slice.getContent(), pageable, total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<CarBrandDTO> findAllByCursor(Pageable pageable, CarBrandFilter filter, PageCursor after, PageCursor before,
+                                                   Set<CarBrandField> fields) {
+        if (after != null && before != null) {
+            throw new InvalidPageRequestException("Only one of 'after' or 'before' may be supplied");
+        }
+        PageCursor position = after != null ? after : before;
+        Sort.Order order = position != null
+                ? new Sort.Order(position.direction(), position.field().getProperty())
+                : keysetOrder(pageable.getSort(), filter);
+        CarBrandSortField field = CarBrandSortField.fromProperty(order.getProperty())
+                .orElseThrow(() -> new InvalidPageRequestException("Unsupported sort property: " + order.getProperty()));
+        if (!filter.supportsSort(List.of(field))) {
+            throw new InvalidPageRequestException("No index serves sorting by " + field.getProperty() + " with these filters");
+        }
+        boolean backward = before != null;
+        Sort.Direction seekDirection = backward
+                ? (order.isAscending() ? Sort.Direction.DESC : Sort.Direction.ASC)
+                : order.getDirection();
+
+        int size = pageable.getPageSize();
+        List<KeysetRow> rows = new ArrayList<>(carBrandRepository.findKeyset(field, seekDirection, position, filter, size + 1, fields));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows.removeLast();
+        }
+        if (backward) {
+            Collections.reverse(rows);
+        }
+
+        String next = null;
+        String previous = null;
+        if (!rows.isEmpty()) {
+            String firstToken = PageCursor.of(field, order.getDirection(), rows.getFirst()).encode();
+            String lastToken = PageCursor.of(field, order.getDirection(), rows.getLast()).encode();
+            next = backward || hasMore ? lastToken : null;
+            previous = after != null || (backward && hasMore) ? firstToken : null;
+        }
+        List<CarBrandDTO> content = rows.stream().map(KeysetRow::brand).toList();
+        return new KeysetPage<>(content, size, Sort.by(order), next, previous);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<CarBrandDTO> findByUuid(UUID uuid) {
-        return carBrandRepository.findByUuid(uuid).map(this::mapToDTO);
+        return carBrandCache.get(uuid, carBrandRepository::findDtoByUuid);
+    }
+
+    // Not transactional: answers from the index must not take a connection
+    @Override
+    public List<CarBrandSuggestion> search(String query, int limit) {
+        int maxResults = properties.getSearch().getMaxResults();
+        if (query == null || query.isBlank()) {
+            throw new InvalidSearchQueryException("The search query may not be blank");
+        }
+        if (limit < 1 || limit > maxResults) {
+            throw new InvalidSearchQueryException("The limit must be between 1 and " + maxResults);
+        }
+        // An empty result means the index is not loaded, or over budget; the database also matches infixes
+        return searchIndex.search(query, limit, properties.getSearch().getTypoMinLength())
+                .filter(hits -> !hits.isEmpty())
+                .orElseGet(() -> carBrandRepository.searchByName(query.trim().toLowerCase(Locale.ROOT), limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CarBrandDTO> findByUuid(UUID uuid, Set<CarBrandField> fields) {
+        if (CarBrandField.selectsAll(fields)) {
+            return findByUuid(uuid);
+        }
+        // The version is read whatever the selection, it is the response's ETag
+        return carBrandCache.getIfPresent(uuid)
+                .or(() -> carBrandRepository.findFieldsByUuid(uuid, withVersion(fields)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LookupResult findAllByUuid(List<UUID> uuids) {
+        int maxLookupItems = properties.getBatch().getMaxLookupItems();
+        if (uuids.size() > maxLookupItems) {
+            throw new BatchTooLargeException("A lookup may hold at most " + maxLookupItems + " UUIDs");
+        }
+        Set<UUID> requested = new LinkedHashSet<>(uuids);
+        Map<UUID, CarBrandDTO> byUuid = carBrandCache.getAll(requested, missing ->
+                carBrandRepository.findAllDtosByUuid(missing).stream()
+                        .collect(Collectors.toMap(CarBrandDTO::uuid, Function.identity())));
+        List<CarBrandDTO> found = new ArrayList<>(byUuid.size());
+        List<UUID> notFound = new ArrayList<>();
+        for (UUID uuid : requested) {
+            CarBrandDTO carBrand = byUuid.get(uuid);
+            if (carBrand != null) {
+                found.add(carBrand);
+            } else {
+                notFound.add(uuid);
+            }
+        }
+        return new LookupResult(found, notFound);
+    }
+
+    @Override
+    public long currentRevision() {
+        return carBrandRepository.findRevision();
     }
 
     @Override
     public CarBrandDTO update(UUID uuid, CarBrandDTO updatedCarBrandDTO) {
-        Optional<CarBrand> existingCarBrand = carBrandRepository.findByUuid(uuid);
-        if(existingCarBrand.isPresent()) {
-            CarBrand carBrand = existingCarBrand.get();
-            carBrand.setName(updatedCarBrandDTO.name());
-            carBrand.setCountryOfOrigin(updatedCarBrandDTO.countryOfOrigin());
-            carBrand.setFoundedYear(updatedCarBrandDTO.foundedYear());
-            carBrand = carBrandRepository.save(carBrand);
-            return mapToDTO(carBrand);
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("name", updatedCarBrandDTO.name());
+        columns.put("country_of_origin", updatedCarBrandDTO.countryOfOrigin());
+        columns.put("founded_year", updatedCarBrandDTO.foundedYear());
+        return writeColumns(uuid, columns, updatedCarBrandDTO.version());
+    }
+
+    @Override
+    public CarBrandDTO patch(UUID uuid, CarBrandPatch patch) {
+        if (patch.isEmpty()) {
+            throw new InvalidCarBrandException("A patch has to set at least one of name, countryOfOrigin or foundedYear");
+        }
+        Map<String, Object> columns = new LinkedHashMap<>();
+        if (patch.name() != null) {
+            columns.put("name", patch.name().orElseThrow(() -> new InvalidCarBrandException("name may not be null")));
+        }
+        if (patch.countryOfOrigin() != null) {
+            columns.put("country_of_origin", patch.countryOfOrigin()
+                    .orElseThrow(() -> new InvalidCarBrandException("countryOfOrigin may not be null")));
+        }
+        if (patch.foundedYear() != null) {
+            columns.put("founded_year", patch.foundedYear().orElse(null));
         }
-        throw new IllegalArgumentException("Car brand not found with UUID: " + uuid);
+        return writeColumns(uuid, columns, patch.version());
+    }
+
+    private CarBrandDTO writeColumns(UUID uuid, Map<String, Object> columns, Long expectedVersion) {
+        CarBrandDTO updated = carBrandRepository.updateColumns(uuid, columns, expectedVersion)
+                .orElseThrow(() -> writeFailure(uuid, expectedVersion));
+        carBrandCache.invalidate(uuid);
+        changeNotifier.publish(CarBrandChange.updated(uuid));
+        return updated;
+    }
+
+    // Only reached when the update matched no row, to tell a missing brand from a stale version
+    private RuntimeException writeFailure(UUID uuid, Long expectedVersion) {
+        Optional<Long> currentVersion = expectedVersion == null ? Optional.empty() : carBrandRepository.findVersionByUuid(uuid);
+        return currentVersion.<RuntimeException>map(current -> new VersionConflictException(uuid, expectedVersion, current))
+                .orElseGet(() -> new CarBrandNotFoundException(uuid));
     }
 
     @Override
+    @Transactional
     public void deleteByUuid(UUID uuid) {
-        carBrandRepository.deleteByUuid(uuid);
+        if (carBrandRepository.deleteByUuid(uuid) == 0) {
+            throw new CarBrandNotFoundException(uuid);
+        }
+        carBrandCache.invalidate(uuid);
+        changeNotifier.publish(CarBrandChange.deleted(uuid));
+    }
+
+    @Override
+    @Transactional
+    public BatchDeleteResult deleteAllByUuid(Collection<UUID> uuids) {
+        int maxItems = properties.getBatch().getMaxItems();
+        if (uuids.size() > maxItems) {
+            throw new BatchTooLargeException("A batch may hold at most " + maxItems + " car brands");
+        }
+        Set<UUID> requested = new LinkedHashSet<>(uuids);
+        List<UUID> deleted = requested.isEmpty() ? List.of() : carBrandRepository.deleteAllByUuid(requested);
+        deleted.forEach(carBrandCache::invalidate);
+        changeNotifier.publishAll(deleted.stream().map(CarBrandChange::deleted).toList());
+        deleted.forEach(requested::remove);
+        return new BatchDeleteResult(deleted.size(), List.copyOf(requested));
+    }
+
+    private static Set<CarBrandField> withVersion(Set<CarBrandField> fields) {
+        Set<CarBrandField> read = EnumSet.copyOf(fields);
+        read.add(CarBrandField.VERSION);
+        return read;
+    }
+
+    /**
+     * Rejects sorts no index can serve instead of letting them turn into a sequential scan and sort:
+     * unknown properties, case-insensitive orders, mixed directions, and column sequences no index
+     * holds after the filter's columns. An unsorted listing gets the filter's index order.
+     */
+    private static Sort indexedSort(Sort sort, CarBrandFilter filter) {
+        List<CarBrandSortField> fields = new ArrayList<>();
+        Sort.Direction direction = null;
+        for (Sort.Order order : sort) {
+            CarBrandSortField field = CarBrandSortField.fromProperty(order.getProperty())
+                    .orElseThrow(() -> new InvalidPageRequestException("Unsupported sort property: " + order.getProperty()));
+            if (order.isIgnoreCase()) {
+                throw new InvalidPageRequestException("Case-insensitive sorting is not supported: " + order.getProperty());
+            }
+            // The (column, id) indexes are only ever read all forward or all backward
+            if (direction != null && order.getDirection() != direction) {
+                throw new InvalidPageRequestException("Sorting in mixed directions is not supported");
+            }
+            direction = order.getDirection();
+            fields.add(field);
+        }
+        if (!filter.supportsSort(fields)) {
+            throw new InvalidPageRequestException("No index serves sorting by "
+                    + fields.stream().map(CarBrandSortField::getProperty).collect(Collectors.joining(", ")) + " with these filters");
+        }
+        CarBrandSortField defaultField = filter.defaultSortField();
+        return sort.isUnsorted() && defaultField != CarBrandSortField.ID ? Sort.by(defaultField.getProperty()) : sort;
+    }
+
+    private static Sort.Order keysetOrder(Sort sort, CarBrandFilter filter) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty()) {
+            return Sort.Order.asc(filter.defaultSortField().getProperty());
+        }
+        if (orders.size() > 1) {
+            throw new InvalidPageRequestException("Cursor paging supports a single sort property");
+        }
+        return orders.getFirst();
+    }
+
+    private static void applyChanges(CarBrand carBrand, CarBrandDTO dto) {
+        carBrand.setName(dto.name());
+        carBrand.setCountryOfOrigin(dto.countryOfOrigin());
+        carBrand.setFoundedYear(dto.foundedYear());
     }
 
-    private CarBrand mapToEntity(CarBrandDTO dto) {
+    // Package-private for the mapping benchmark
+    static CarBrand mapToEntity(CarBrandDTO dto) {
         return CarBrand.builder()
                 .uuid(dto.uuid())
                 .name(dto.name())
@@ -76,14 +468,15 @@ public class CarBrandServiceImpl implements CarBrandService {
                 .build();
     }
 
-    private CarBrandDTO mapToDTO(CarBrand entity) {
+    static CarBrandDTO mapToDTO(CarBrand entity) {
         return new CarBrandDTO(
                 entity.getUuid(),
                 entity.getName(),
                 entity.getCountryOfOrigin(),
                 entity.getFoundedYear(),
                 entity.getCreatedAt(),
-                entity.getUpdatedAt()
+                entity.getUpdatedAt(),
+                entity.getVersion()
         );
     }
 }
@@ -0,0 +1,65 @@
+package app.kyosk.infraops.cars.util;
+
+import java.util.Optional;
+
+/**
+ * Entity tags for car brand responses. Single brands get a strong tag of their optimistic locking
+ * version. Listings get a weak tag of the table revision: it says the page's content is unchanged,
+ * not its bytes, which differ between the representations and content codings a client can negotiate.
+ */
+public final class ETags {
+
+    private static final String WEAK_PREFIX = "W/";
+    private static final String VERSION_PREFIX = "\"v";
+
+    private ETags() {
+    }
+
+    public static String ofVersion(long version) {
+        return VERSION_PREFIX + Long.toHexString(version) + "\"";
+    }
+
+    /**
+     * The version named by an {@code If-Match} header holding a single strong version tag. Empty for
+     * anything else, including lists and weak tags, which can then never match.
+     */
+    public static Optional<Long> parseVersion(String header) {
+        String tag = header.trim();
+        if (!tag.startsWith(VERSION_PREFIX) || !tag.endsWith("\"") || tag.length() <= VERSION_PREFIX.length() + 1) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseUnsignedLong(tag.substring(VERSION_PREFIX.length(), tag.length() - 1), 16));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static String ofRevision(long revision) {
+        return WEAK_PREFIX + "\"r" + Long.toHexString(revision) + "\"";
+    }
+
+    /**
+     * Whether an {@code If-Match}/{@code If-None-Match} header value matches {@code etag}.
+     * {@code If-None-Match} uses the weak comparison (a {@code W/} prefix is ignored on both sides),
+     * {@code If-Match} the strong one (weak tags never match).
+     */
+    public static boolean matches(String header, String etag, boolean weakComparison) {
+        boolean weakTag = etag.startsWith(WEAK_PREFIX);
+        String opaqueTag = weakTag ? etag.substring(WEAK_PREFIX.length()) : etag;
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            boolean weakCandidate = candidate.startsWith(WEAK_PREFIX);
+            if (!weakComparison && (weakCandidate || weakTag)) {
+                continue;
+            }
+            if ((weakCandidate ? candidate.substring(WEAK_PREFIX.length()) : candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package app.kyosk.infraops.cars.util;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a cursor-paged listing. Unlike {@link org.springframework.data.domain.Page} it carries
+ * no totals: the neighbouring pages are addressed by the {@code nextCursor}/{@code previousCursor}
+ * tokens, which are {@code null} when there is nothing in that direction.
+ */
+public record KeysetPage<T>(
+        List<T> content,
+        int size,
+        Sort sort,
+        String nextCursor,
+        String previousCursor
+) {
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().<R>map(mapper).toList();
+        return new KeysetPage<>(mapped, size, sort, nextCursor, previousCursor);
+    }
+}
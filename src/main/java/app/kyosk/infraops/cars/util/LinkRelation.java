@@ -0,0 +1,39 @@
+package app.kyosk.infraops.cars.util;
+
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+// The links a list response can carry, selected with ?links=next,self
+public enum LinkRelation {
+    FIRST,
+    PREVIOUS,
+    SELF,
+    NEXT,
+    LAST;
+
+    public static final Set<LinkRelation> ALL = Collections.unmodifiableSet(EnumSet.allOf(LinkRelation.class));
+
+    // null (parameter absent) asks for every link, an empty value for none
+    public static Set<LinkRelation> parse(String links) {
+        if (links == null) {
+            return ALL;
+        }
+        EnumSet<LinkRelation> relations = EnumSet.noneOf(LinkRelation.class);
+        for (String relation : links.split(",")) {
+            String name = relation.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                relations.add(valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidPageRequestException("Unknown link relation: " + name, e);
+            }
+        }
+        return relations;
+    }
+}
@@ -0,0 +1,65 @@
+package app.kyosk.infraops.cars.util;
+
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
+import app.kyosk.infraops.cars.repository.CarBrandSortField;
+import app.kyosk.infraops.cars.repository.KeysetRow;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a row in a keyset ordering: the sort key and direction, the value of the sort key
+ * for that row and the row id used as tie-breaker. Clients only ever see the URL-safe token form.
+ */
+public record PageCursor(CarBrandSortField field, Sort.Direction direction, Object value, long id) {
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "~";
+    private static final String PRESENT_VALUE = "=";
+
+    public static PageCursor of(CarBrandSortField field, Sort.Direction direction, KeysetRow row) {
+        return new PageCursor(field, direction, field.valueOf(row), row.id());
+    }
+
+    public String encode() {
+        String raw = field.getProperty() + SEPARATOR
+                + (direction.isAscending() ? "a" : "d") + SEPARATOR
+                + id + SEPARATOR
+                + (value == null ? NULL_VALUE : PRESENT_VALUE + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new InvalidPageRequestException("Malformed cursor: " + token);
+            }
+            CarBrandSortField field = CarBrandSortField.fromProperty(parts[0])
+                    .orElseThrow(() -> new InvalidPageRequestException("Malformed cursor: " + token));
+            Sort.Direction direction = switch (parts[1]) {
+                case "a" -> Sort.Direction.ASC;
+                case "d" -> Sort.Direction.DESC;
+                default -> throw new InvalidPageRequestException("Malformed cursor: " + token);
+            };
+            long id = Long.parseLong(parts[2]);
+            Object value;
+            if (parts[3].equals(NULL_VALUE)) {
+                value = null;
+            } else if (parts[3].startsWith(PRESENT_VALUE)) {
+                value = field.parse(parts[3].substring(1));
+            } else {
+                throw new InvalidPageRequestException("Malformed cursor: " + token);
+            }
+            return new PageCursor(field, direction, value, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidPageRequestException("Malformed cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package app.kyosk.infraops.cars.util;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Links of one list response, built from the request URL which is parsed once. The path and the
+ * query parameters the links do not set themselves (sort, filters, links) are kept as sent; each
+ * link then only appends its own parameters to that prefix in a single reused builder.
+ */
+final class PageLinkTemplate {
+
+    private static final Set<String> PAGE_PARAMETERS = Set.of("page", "size", "paging", "after", "before");
+    // The sort of a cursor page travels inside its tokens, the first link spells it out itself
+    private static final Set<String> CURSOR_PARAMETERS = Set.of("page", "size", "paging", "after", "before", "sort");
+
+    private final StringBuilder builder;
+    private final int pathLength;
+    private final int prefixLength;
+    private final String carried;
+
+    private PageLinkTemplate(String requestUrl, String paging, Set<String> ownParameters) {
+        int queryStart = requestUrl.indexOf('?');
+        int pathEnd = queryStart < 0 ? requestUrl.length() : queryStart;
+        if (pathEnd > 0 && requestUrl.charAt(pathEnd - 1) == '/') {
+            pathEnd--;
+        }
+        carried = queryStart < 0 ? "" : carriedParameters(requestUrl, queryStart + 1, ownParameters);
+        builder = new StringBuilder(pathEnd + carried.length() + 64);
+        builder.append(requestUrl, 0, pathEnd).append('?');
+        pathLength = builder.length();
+        if (paging != null) {
+            builder.append("paging=").append(paging).append('&');
+        }
+        builder.append(carried);
+        prefixLength = builder.length();
+    }
+
+    // Offset links stay bare, every other mode has to be carried along or the next click falls back to counting
+    static PageLinkTemplate forPages(String requestUrl, PagingMode mode) {
+        return new PageLinkTemplate(requestUrl, mode == PagingMode.OFFSET ? null : mode.parameter(), PAGE_PARAMETERS);
+    }
+
+    static PageLinkTemplate forCursor(String requestUrl) {
+        return new PageLinkTemplate(requestUrl, null, CURSOR_PARAMETERS);
+    }
+
+    String page(int number, int size) {
+        builder.setLength(prefixLength);
+        return builder.append("page=").append(number).append("&size=").append(size).toString();
+    }
+
+    String firstCursorPage(int size, Sort sort) {
+        builder.setLength(pathLength);
+        builder.append("paging=").append(PagingMode.CURSOR.parameter()).append('&').append(carried).append("size=").append(size);
+        for (Sort.Order order : sort) {
+            builder.append("&sort=").append(order.getProperty()).append(',')
+                    .append(order.getDirection().name().toLowerCase(Locale.ROOT));
+        }
+        return builder.toString();
+    }
+
+    // Cursor tokens are base64url, safe in a query string as they are
+    String cursorPage(String direction, String token, int size) {
+        builder.setLength(pathLength);
+        return builder.append(direction).append('=').append(token).append('&').append(carried)
+                .append("size=").append(size).toString();
+    }
+
+    private static String carriedParameters(String url, int queryStart, Set<String> ownParameters) {
+        StringBuilder carried = new StringBuilder(url.length() - queryStart + 1);
+        int start = queryStart;
+        while (start < url.length()) {
+            int end = url.indexOf('&', start);
+            if (end < 0) {
+                end = url.length();
+            }
+            int equals = url.indexOf('=', start);
+            int nameEnd = equals < 0 || equals > end ? end : equals;
+            if (end > start && !ownParameters.contains(url.substring(start, nameEnd))) {
+                carried.append(url, start, end).append('&');
+            }
+            start = end + 1;
+        }
+        return carried.toString();
+    }
+}
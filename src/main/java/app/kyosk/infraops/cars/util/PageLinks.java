@@ -1,38 +1,77 @@
 package app.kyosk.infraops.cars.util;
 
-import lombok.Getter;
-import lombok.Setter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
-@Getter @Setter
-public class PageLinks {
-    private String first;
-    private String previous;
-    private String self;
-    private String next;
-    private String last;
-
-    private static final String _firstPageLink = "%s?page=0&size=%d";
-    private static final String _nextPageLink = "%s?page=%d&size=%d";
-
-    public static PageLinks from(Page<?> page, String baseUrl) {
-        PageLinks links = new PageLinks();
-        baseUrl = baseUrl.contains("?") ? baseUrl.substring(0, baseUrl.indexOf('?')) : baseUrl;
-        baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
-        links.setFirst(String.format(_firstPageLink, baseUrl, page.getSize()));
-        links.setSelf(String.format(_nextPageLink, baseUrl, page.getNumber(), page.getSize()));
-        if (page.hasPrevious()) {
-            links.setPrevious(String.format(_nextPageLink, baseUrl, page.getNumber() - 1, page.getSize()));
-        } else {
-            links.setPrevious(null);
-        }
-        if (page.hasNext()) {
-            links.setNext(String.format(_nextPageLink, baseUrl, page.getNumber() + 1, page.getSize()));
-        } else {
-            links.setNext(null);
-        }
-        links.setLast(String.format(_nextPageLink, baseUrl, page.getTotalPages() - 1, page.getSize()));
-        return links;
+import java.util.Set;
+
+/**
+ * Navigation links of a list response. Only the relations the client asked for are built; a
+ * missing link is left out of the JSON, whether it was not asked for or does not exist.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PageLinks(
+        String first,
+        String previous,
+        String self,
+        String next,
+        String last
+) {
+    public static PageLinks from(Page<?> page, String requestUrl) {
+        return from(page, requestUrl, PagingMode.OFFSET, LinkRelation.ALL);
+    }
+
+    public static PageLinks from(Page<?> page, String requestUrl, PagingMode mode) {
+        return from(page, requestUrl, mode, LinkRelation.ALL);
+    }
+
+    public static PageLinks from(Page<?> page, String requestUrl, PagingMode mode, Set<LinkRelation> relations) {
+        PageLinkTemplate template = PageLinkTemplate.forPages(requestUrl, mode);
+        // An empty result still has one (empty) page to point at
+        String last = relations.contains(LinkRelation.LAST)
+                ? template.page(Math.max(page.getTotalPages() - 1, 0), page.getSize())
+                : null;
+        return pageLinks(page, template, relations, last);
+    }
+
+    public static PageLinks from(Slice<?> slice, String requestUrl) {
+        return from(slice, requestUrl, LinkRelation.ALL);
     }
 
+    // Slices are never counted, so there is no last link
+    public static PageLinks from(Slice<?> slice, String requestUrl, Set<LinkRelation> relations) {
+        return pageLinks(slice, PageLinkTemplate.forPages(requestUrl, PagingMode.SLICE), relations, null);
+    }
+
+    public static PageLinks from(KeysetPage<?> page, String requestUrl) {
+        return from(page, requestUrl, LinkRelation.ALL);
+    }
+
+    /**
+     * Cursor pages link to their neighbours by token; the sort travels inside the token, so only
+     * the first link has to spell it out. There is no last link since seeking never counts rows.
+     */
+    public static PageLinks from(KeysetPage<?> page, String requestUrl, Set<LinkRelation> relations) {
+        PageLinkTemplate template = PageLinkTemplate.forCursor(requestUrl);
+        return new PageLinks(
+                relations.contains(LinkRelation.FIRST) ? template.firstCursorPage(page.size(), page.sort()) : null,
+                relations.contains(LinkRelation.PREVIOUS) && page.hasPrevious()
+                        ? template.cursorPage("before", page.previousCursor(), page.size()) : null,
+                relations.contains(LinkRelation.SELF) ? requestUrl : null,
+                relations.contains(LinkRelation.NEXT) && page.hasNext()
+                        ? template.cursorPage("after", page.nextCursor(), page.size()) : null,
+                null);
+    }
+
+    private static PageLinks pageLinks(Slice<?> page, PageLinkTemplate template, Set<LinkRelation> relations, String last) {
+        int number = page.getNumber();
+        int size = page.getSize();
+        return new PageLinks(
+                relations.contains(LinkRelation.FIRST) ? template.page(0, size) : null,
+                relations.contains(LinkRelation.PREVIOUS) && page.hasPrevious() ? template.page(number - 1, size) : null,
+                relations.contains(LinkRelation.SELF) ? template.page(number, size) : null,
+                relations.contains(LinkRelation.NEXT) && page.hasNext() ? template.page(number + 1, size) : null,
+                last);
+    }
 }
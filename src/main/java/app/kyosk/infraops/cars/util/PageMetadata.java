@@ -1,31 +1,37 @@
 package app.kyosk.infraops.cars.util;
 
-import lombok.Getter;
-import lombok.Setter;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
-@Getter
-@Setter
-public class PageMetadata {
-    private int pageNumber;
-    private int pageSize;
-    private long totalElements;
-    private int totalPages;
-    private boolean isFirst;
-    private boolean isLast;
-    private boolean hasNext;
-    private boolean hasPrevious;
-
+public record PageMetadata(
+        Integer pageNumber,
+        int pageSize,
+        Long totalElements,
+        Integer totalPages,
+        TotalKind totalKind,
+        boolean first,
+        boolean last,
+        boolean hasNext,
+        boolean hasPrevious
+) {
     public static PageMetadata from(Page<?> page) {
-        PageMetadata metadata = new PageMetadata();
-        metadata.setPageNumber(page.getNumber());
-        metadata.setPageSize(page.getSize());
-        metadata.setTotalElements(page.getTotalElements());
-        metadata.setTotalPages(page.getTotalPages());
-        metadata.setFirst(page.isFirst());
-        metadata.setLast(page.isLast());
-        metadata.setHasNext(page.hasNext());
-        metadata.setHasPrevious(page.hasPrevious());
-        return metadata;
+        return from(page, TotalKind.EXACT);
+    }
+
+    public static PageMetadata from(Page<?> page, TotalKind totalKind) {
+        return new PageMetadata(page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages(),
+                totalKind, page.isFirst(), page.isLast(), page.hasNext(), page.hasPrevious());
+    }
+
+    // A slice knows its neighbours but was never counted, so the totals stay null
+    public static PageMetadata from(Slice<?> slice) {
+        return new PageMetadata(slice.getNumber(), slice.getSize(), null, null,
+                TotalKind.ABSENT, slice.isFirst(), slice.isLast(), slice.hasNext(), slice.hasPrevious());
+    }
+
+    // Cursor pages have no page number and no totals, so those stay null
+    public static PageMetadata from(KeysetPage<?> page) {
+        return new PageMetadata(null, page.size(), null, null,
+                TotalKind.ABSENT, !page.hasPrevious(), !page.hasNext(), page.hasNext(), page.hasPrevious());
     }
 }
@@ -0,0 +1,30 @@
+package app.kyosk.infraops.cars.util;
+
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
+
+import java.util.Locale;
+
+/**
+ * How a list request is paged. {@code OFFSET} is the classic {@code page}/{@code size} mode with an
+ * exact count, {@code SLICE} skips the count and only reports whether a next page exists,
+ * {@code ESTIMATED} reports an approximate total and {@code CURSOR} seeks from an opaque
+ * {@code after}/{@code before} token instead of skipping rows.
+ */
+public enum PagingMode {
+    OFFSET,
+    SLICE,
+    ESTIMATED,
+    CURSOR;
+
+    public static PagingMode from(String value) {
+        try {
+            return PagingMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Unsupported paging mode: " + value, e);
+        }
+    }
+
+    public String parameter() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
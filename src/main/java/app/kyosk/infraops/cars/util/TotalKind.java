@@ -0,0 +1,13 @@
+package app.kyosk.infraops.cars.util;
+
+/**
+ * How much the {@code totalElements}/{@code totalPages} of a page can be trusted.
+ */
+public enum TotalKind {
+    // Counted with SELECT COUNT(*) for this request
+    EXACT,
+    // Taken from planner statistics or a recently cached count
+    ESTIMATED,
+    // Not computed at all, the totals are null
+    ABSENT
+}
@@ -0,0 +1,9 @@
+-- V202610170900__Car_Brand_Keyset_Indexes.sql
+
+-- Composite (sort key, id) indexes so cursor paging can seek with a row-value comparison
+-- instead of skipping OFFSET rows. The id column is the tie-breaker of every cursor.
+CREATE INDEX IF NOT EXISTS idx_car_brand_name_id ON car_brand (name, id);
+CREATE INDEX IF NOT EXISTS idx_car_brand_country_of_origin_id ON car_brand (country_of_origin, id);
+CREATE INDEX IF NOT EXISTS idx_car_brand_founded_year_id ON car_brand (founded_year, id);
+CREATE INDEX IF NOT EXISTS idx_car_brand_created_at_id ON car_brand (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_car_brand_updated_at_id ON car_brand (updated_at, id);
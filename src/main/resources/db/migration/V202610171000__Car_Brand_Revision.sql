@@ -0,0 +1,38 @@
+-- V202610171000__Car_Brand_Revision.sql
+
+-- List responses are tagged with a revision that moves with every committed write to car_brand, so a
+-- conditional GET costs one small query instead of the page query. Writers never update a shared row,
+-- whose lock would serialize them until commit: each writing statement appends a row to
+-- car_brand_revision_delta instead. The revision is the base counter plus the number of deltas, so it
+-- moves exactly when a write commits and never for one that rolls back. The application folds the
+-- deltas into the base counter every few seconds, which keeps the count short.
+CREATE TABLE car_brand_revision
+(
+    id       SMALLINT PRIMARY KEY CHECK (id = 1),
+    revision BIGINT NOT NULL
+);
+
+INSERT INTO car_brand_revision (id, revision)
+VALUES (1, 0);
+
+CREATE TABLE car_brand_revision_delta
+(
+    id BIGSERIAL PRIMARY KEY
+);
+
+CREATE FUNCTION bump_car_brand_revision() RETURNS trigger
+    LANGUAGE plpgsql
+AS
+$$
+BEGIN
+    INSERT INTO car_brand_revision_delta DEFAULT VALUES;
+    RETURN NULL;
+END;
+$$;
+
+-- Statement-level without transition tables, so bulk loads pay one insert per statement and nothing per row
+CREATE TRIGGER car_brand_revision_bump
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE
+    ON car_brand
+    FOR EACH STATEMENT
+EXECUTE FUNCTION bump_car_brand_revision();
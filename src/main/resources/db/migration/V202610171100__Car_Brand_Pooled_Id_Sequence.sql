@@ -0,0 +1,6 @@
+-- V202610171100__Car_Brand_Pooled_Id_Sequence.sql
+
+-- IDENTITY ids force Hibernate to insert rows one at a time to learn each id. A sequence that
+-- hands out blocks of 50 lets it allocate ids in memory and send inserts as JDBC batches.
+-- The increment has to match allocationSize on CarBrand.id.
+ALTER SEQUENCE car_brand_id_seq INCREMENT BY 50;
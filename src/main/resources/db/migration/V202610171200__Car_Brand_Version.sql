@@ -0,0 +1,5 @@
+-- V202610171200__Car_Brand_Version.sql
+
+-- Optimistic locking: every write bumps the version and conditional writes only apply to the
+-- version the client last read. Existing rows start at 0, as new ones do.
+ALTER TABLE car_brand ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
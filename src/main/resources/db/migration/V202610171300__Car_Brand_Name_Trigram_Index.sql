@@ -0,0 +1,7 @@
+-- V202610171300__Car_Brand_Name_Trigram_Index.sql
+
+-- Trigram index behind the search fallback: serves both the infix LIKE and the similarity (%)
+-- operator on the lower-cased name, which the btree on name cannot.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_car_brand_name_trgm ON car_brand USING gin (lower(name) gin_trgm_ops);
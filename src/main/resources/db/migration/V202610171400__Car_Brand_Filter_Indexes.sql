@@ -0,0 +1,8 @@
+-- V202610171400__Car_Brand_Filter_Indexes.sql
+
+-- Composite indexes for filtered listings. An equality filter on country_of_origin followed by the
+-- sort column and the id tie-breaker lets a filtered page be read in index order and stop after
+-- LIMIT rows. Sorting a country by id uses idx_car_brand_country_of_origin_id, and a founded-year
+-- range is a range scan on idx_car_brand_founded_year_id.
+CREATE INDEX IF NOT EXISTS idx_car_brand_country_name_id ON car_brand (country_of_origin, name, id);
+CREATE INDEX IF NOT EXISTS idx_car_brand_country_founded_year_id ON car_brand (country_of_origin, founded_year, id);
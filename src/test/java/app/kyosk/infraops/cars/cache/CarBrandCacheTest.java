@@ -0,0 +1,80 @@
+package app.kyosk.infraops.cars.cache;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeFeedReset;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarBrandCacheTest {
+
+    private CarBrandCache carBrandCache;
+
+    @BeforeEach
+    void setUp() {
+        carBrandCache = new CarBrandCache(new CarBrandProperties());
+    }
+
+    private CarBrandDTO createCarBrandDTO(UUID uuid) {
+        return new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null, 0L);
+    }
+
+    @Test
+    void testGetLoadsOnceAndCountsHitsAndMisses() {
+        UUID uuid = UUID.randomUUID();
+
+        carBrandCache.get(uuid, key -> Optional.of(createCarBrandDTO(key)));
+        Optional<CarBrandDTO> cached = carBrandCache.get(uuid, key -> fail("Should have been served from the cache"));
+
+        assertTrue(cached.isPresent());
+        assertEquals(1, carBrandCache.stats().missCount());
+        assertEquals(1, carBrandCache.stats().hitCount());
+    }
+
+    @Test
+    void testUnknownUuidIsNotCached() {
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(carBrandCache.get(uuid, key -> Optional.empty()).isEmpty());
+        assertTrue(carBrandCache.getIfPresent(uuid).isEmpty());
+    }
+
+    @Test
+    void testRemoteChangeInvalidatesEntry() {
+        UUID uuid = UUID.randomUUID();
+        carBrandCache.get(uuid, key -> Optional.of(createCarBrandDTO(key)));
+
+        carBrandCache.onChange(CarBrandChange.updated(uuid));
+
+        assertTrue(carBrandCache.getIfPresent(uuid).isEmpty());
+    }
+
+    @Test
+    void testFeedResetInvalidatesEverything() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        carBrandCache.get(first, key -> Optional.of(createCarBrandDTO(key)));
+        carBrandCache.get(second, key -> Optional.of(createCarBrandDTO(key)));
+
+        carBrandCache.onFeedReset(new CarBrandChangeFeedReset());
+
+        assertTrue(carBrandCache.getIfPresent(first).isEmpty());
+        assertTrue(carBrandCache.getIfPresent(second).isEmpty());
+    }
+
+    @Test
+    void testBindsCacheMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        carBrandCache.bindTo(registry);
+
+        assertNotNull(registry.find("cache.gets").tag("cache", CarBrandCache.NAME).tag("result", "hit").functionCounter());
+    }
+}
@@ -0,0 +1,101 @@
+package app.kyosk.infraops.cars.cache;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeFeedReset;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarBrandPageCacheTest {
+
+    private static final String REQUEST_URL = "http://localhost/api/v1/car-brands";
+
+    private CarBrandProperties properties;
+    private CarBrandPageCache pageCache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CarBrandProperties();
+        pageCache = new CarBrandPageCache(properties, new ObjectMapper());
+    }
+
+    private CarBrandPageCache.Key key(int page) {
+        return CarBrandPageCache.Key.of(REQUEST_URL, PageRequest.of(page, 10));
+    }
+
+    @Test
+    void testPutStoresSerializedBody() {
+        CarBrandPageCache.Entry entry = pageCache.put(key(0), pageCache.version(), "W/\"r1\"", Map.of("content", List.of()));
+
+        assertEquals("{\"content\":[]}", new String(entry.json()));
+        assertNull(entry.gzip());
+        assertSame(entry, pageCache.get(key(0)).orElseThrow());
+    }
+
+    @Test
+    void testLargeBodyIsAlsoGzipped() {
+        properties.getPageCache().setGzipMinSize(0);
+
+        CarBrandPageCache.Entry entry = pageCache.put(key(0), pageCache.version(), "W/\"r1\"", Map.of("content", List.of()));
+
+        assertNotNull(entry.gzip());
+    }
+
+    @Test
+    void testPageRenderedBeforeWriteIsNotStored() {
+        long version = pageCache.version();
+        pageCache.onChange(CarBrandChange.created(UUID.randomUUID()));
+
+        pageCache.put(key(0), version, "W/\"r1\"", Map.of());
+
+        assertTrue(pageCache.get(key(0)).isEmpty());
+    }
+
+    @Test
+    void testChangesInvalidateAllPages() {
+        pageCache.put(key(0), pageCache.version(), "W/\"r1\"", Map.of());
+        pageCache.put(key(1), pageCache.version(), "W/\"r1\"", Map.of());
+
+        pageCache.onChange(CarBrandChange.deleted(UUID.randomUUID()));
+
+        assertTrue(pageCache.get(key(0)).isEmpty());
+        assertTrue(pageCache.get(key(1)).isEmpty());
+    }
+
+    @Test
+    void testFeedResetInvalidatesAllPages() {
+        pageCache.put(key(0), pageCache.version(), "W/\"r1\"", Map.of());
+
+        pageCache.onFeedReset(new CarBrandChangeFeedReset());
+
+        assertTrue(pageCache.get(key(0)).isEmpty());
+    }
+
+    @Test
+    void testOnlyHotPagesAreCacheable() {
+        assertTrue(pageCache.isCacheable(PageRequest.of(4, 10)));
+        assertFalse(pageCache.isCacheable(PageRequest.of(5, 10)));
+
+        properties.getPageCache().setEnabled(false);
+        assertFalse(pageCache.isCacheable(PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(CarBrandPageCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CarBrandPageCache.acceptsGzip("*"));
+        assertTrue(CarBrandPageCache.acceptsGzip("GZIP;q=0.5"));
+        assertFalse(CarBrandPageCache.acceptsGzip(null));
+        assertFalse(CarBrandPageCache.acceptsGzip("br"));
+        assertFalse(CarBrandPageCache.acceptsGzip("gzip;q=0, *"));
+        assertFalse(CarBrandPageCache.acceptsGzip("*;q=0"));
+    }
+}
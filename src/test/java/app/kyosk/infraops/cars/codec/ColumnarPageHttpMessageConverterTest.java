@@ -0,0 +1,78 @@
+package app.kyosk.infraops.cars.codec;
+
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandView;
+import app.kyosk.infraops.cars.dto.PagedResponse;
+import app.kyosk.infraops.cars.repository.CarBrandField;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPageHttpMessageConverterTest {
+
+    private final ColumnarPageHttpMessageConverter converter =
+            new ColumnarPageHttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+
+    @Test
+    void writesSelectedPropertiesAsColumns() throws Exception {
+        Set<CarBrandField> fields = CarBrandField.parse("uuid,name");
+        UUID toyota = UUID.randomUUID();
+        UUID kia = UUID.randomUUID();
+        List<CarBrandView> content = List.of(
+                new CarBrandView(new CarBrandDTO(toyota, "Toyota", null, null, null, null, null), fields),
+                new CarBrandView(new CarBrandDTO(kia, "Kia", null, null, null, null, null), fields));
+        PagedResponse<CarBrandView> page = PagedResponse.from(
+                new PageImpl<>(content, PageRequest.of(0, 2), 5), "http://localhost/api/v1/car-brands");
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(page, CarBrandEncodings.COLUMNAR_CBOR, message);
+
+        JsonNode body = new CBORMapper().readTree(message.getBodyAsBytes());
+        assertEquals(CarBrandEncodings.COLUMNAR_CBOR, message.getHeaders().getContentType());
+        assertEquals(List.of("uuid", "name"), fieldNames(body.get("content")));
+        assertEquals("Kia", body.get("content").get("name").get(1).asText());
+        assertEquals(2, body.get("content").get("uuid").size());
+        assertEquals(5, body.get("metadata").get("totalElements").asInt());
+        assertTrue(body.get("links").has("next"));
+    }
+
+    @Test
+    void writesEveryPropertyOfPlainBrands() throws Exception {
+        CarBrandDTO carBrand = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        PagedResponse<CarBrandDTO> page = PagedResponse.from(
+                new PageImpl<>(List.of(carBrand), PageRequest.of(0, 1), 1), "http://localhost/api/v1/car-brands");
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+
+        converter.write(page, CarBrandEncodings.COLUMNAR_CBOR, message);
+
+        JsonNode content = new CBORMapper().readTree(message.getBodyAsBytes()).get("content");
+        assertEquals(CarBrandField.ALL.size(), content.size());
+        assertEquals(1937, content.get("foundedYear").get(0).asInt());
+    }
+
+    @Test
+    void onlyClaimsTheColumnarMediaType() {
+        assertTrue(converter.canWrite(PagedResponse.class, CarBrandEncodings.COLUMNAR_CBOR));
+        assertFalse(converter.canWrite(PagedResponse.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(CarBrandDTO.class, CarBrandEncodings.COLUMNAR_CBOR));
+        assertFalse(converter.canRead(PagedResponse.class, CarBrandEncodings.COLUMNAR_CBOR));
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
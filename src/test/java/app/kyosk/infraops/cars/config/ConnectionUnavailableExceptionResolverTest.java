@@ -0,0 +1,38 @@
+package app.kyosk.infraops.cars.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionUnavailableExceptionResolverTest {
+
+    private final ConnectionUnavailableExceptionResolver resolver = new ConnectionUnavailableExceptionResolver(Duration.ofSeconds(2));
+
+    @Test
+    void resolveException_ShouldAnswer503WhenNoConnectionWasFree() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Exception wrapped = new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                new IllegalStateException(new SQLTransientConnectionException("No connection free within PT2S")));
+
+        assertNotNull(resolver.resolveException(new MockHttpServletRequest("GET", "/api/v1/car-brands"), response, null, wrapped));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void resolveException_ShouldLeaveOtherFailuresToTheDefaultResolvers() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(resolver.resolveException(new MockHttpServletRequest("GET", "/api/v1/car-brands"), response, null,
+                new IllegalStateException("boom")));
+        assertEquals(200, response.getStatus());
+    }
+}
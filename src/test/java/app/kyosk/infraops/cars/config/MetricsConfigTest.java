@@ -0,0 +1,63 @@
+package app.kyosk.infraops.cars.config;
+
+import app.kyosk.infraops.cars.cache.CarBrandCache;
+import app.kyosk.infraops.cars.events.CarBrandChangeNotifier;
+import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import app.kyosk.infraops.cars.search.CarBrandSearchIndex;
+import app.kyosk.infraops.cars.services.CarBrandService;
+import app.kyosk.infraops.cars.services.impl.CarBrandCountEstimator;
+import app.kyosk.infraops.cars.services.impl.CarBrandServiceImpl;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class MetricsConfigTest {
+
+    @Mock
+    private CarBrandRepository carBrandRepository;
+
+    @Mock
+    private CarBrandCountEstimator countEstimator;
+
+    @Mock
+    private CarBrandChangeNotifier changeNotifier;
+
+    @Mock
+    private CarBrandSearchIndex searchIndex;
+
+    private SimpleMeterRegistry registry;
+    private CarBrandService carBrandService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        CarBrandProperties properties = new CarBrandProperties();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new CarBrandServiceImpl(carBrandRepository,
+                countEstimator, new CarBrandCache(properties), changeNotifier, properties, searchIndex));
+        proxyFactory.addAspect(new MetricsConfig().timedAspect(registry));
+        carBrandService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void testServiceMethodsAreTimedPerMethod() {
+        when(carBrandRepository.findRevision()).thenReturn(3L);
+
+        carBrandService.currentRevision();
+        carBrandService.findByUuid(UUID.randomUUID());
+
+        Timer revision = registry.find(MetricsConfig.SERVICE_TIMER).tag("method", "currentRevision").timer();
+        assertNotNull(revision);
+        assertEquals(1, revision.count());
+        assertNotNull(registry.find(MetricsConfig.SERVICE_TIMER).tag("method", "findByUuid").timer());
+    }
+}
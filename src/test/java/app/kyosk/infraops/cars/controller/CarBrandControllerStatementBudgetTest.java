@@ -0,0 +1,193 @@
+package app.kyosk.infraops.cars.controller;
+
+import app.kyosk.infraops.cars.TestPostgres;
+import app.kyosk.infraops.cars.jdbc.StatementBudgetInterceptor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs every endpoint against a real database with overruns set to fail, so a request that starts
+ * issuing an extra statement (an N+1 lookup, a hidden SELECT before a write) breaks the build here.
+ */
+@SpringBootTest(properties = "infraops.car-brands.statement-budget.fail-on-overrun=true")
+@AutoConfigureMockMvc
+class CarBrandControllerStatementBudgetTest {
+
+    private static final String BASE = "/api/v1/car-brands";
+
+    @DynamicPropertySource
+    static void dataSource(DynamicPropertyRegistry registry) {
+        TestPostgres.registerDataSource(registry);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String name;
+
+    @BeforeEach
+    void setUp() {
+        name = "Budget Motors " + UUID.randomUUID();
+    }
+
+    @Test
+    void create_StaysWithinBudget() throws Exception {
+        create(name);
+
+        assertWithinBudget("create", 3);
+    }
+
+    @Test
+    void getByUuid_StaysWithinBudget() throws Exception {
+        JsonNode created = create(name);
+        String uuid = created.get("uuid").asText();
+
+        mockMvc.perform(get(BASE + "/" + uuid)).andExpect(status().isOk());
+        mockMvc.perform(get(BASE + "/" + uuid).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(BASE + "/" + UUID.randomUUID())).andExpect(status().isNotFound());
+        mockMvc.perform(get(BASE + "/" + UUID.randomUUID()).param("fields", "uuid,name")).andExpect(status().isNotFound());
+
+        assertWithinBudget("getByUuid", 1);
+    }
+
+    @Test
+    void getAllPaged_StaysWithinBudgetInEveryMode() throws Exception {
+        create(name);
+
+        mockMvc.perform(get(BASE).param("page", "0").param("size", "1")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE).param("page", "50").param("size", "1")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE).param("paging", "slice").param("size", "1")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE).param("paging", "estimated").param("size", "1")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE).param("paging", "cursor").param("size", "1")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE).param("page", "50").param("size", "1").param("countryOfOrigin", "Kenya"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(BASE).param("paging", "cursor").param("sort", "foundedYear").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].foundedYear").doesNotExist());
+
+        assertWithinBudget("getAllPaged", 4);
+    }
+
+    @Test
+    void search_AndExport_RunOneStatement() throws Exception {
+        create(name);
+
+        mockMvc.perform(get(BASE + "/search").param("q", "budget")).andExpect(status().isOk());
+        mockMvc.perform(get(BASE + "/export")).andExpect(status().isOk());
+
+        assertWithinBudget("search", 1);
+        assertWithinBudget("export", 1);
+    }
+
+    @Test
+    void lookup_ReadsAllUuidsInOneStatement() throws Exception {
+        String first = create(name).get("uuid").asText();
+        String second = create(name + " II").get("uuid").asText();
+
+        mockMvc.perform(post(BASE + "/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"" + second + "\",\"" + UUID.randomUUID() + "\",\"" + first + "\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.carBrands.length()").value(2))
+                .andExpect(jsonPath("$.notFound.length()").value(1));
+
+        assertWithinBudget("lookup", 1);
+    }
+
+    @Test
+    void writes_DoNotReadBeforeWriting() throws Exception {
+        MvcResult created = createRequest(name);
+        String uuid = objectMapper.readTree(created.getResponse().getContentAsString()).get("uuid").asText();
+        String eTag = created.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put(BASE + "/" + uuid)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"countryOfOrigin\":\"Kenya\",\"foundedYear\":2001}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch(BASE + "/" + uuid)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"foundedYear\":2002}"))
+                .andExpect(status().isOk());
+        // A stale version costs the update and one lookup to tell the conflict from a missing brand
+        mockMvc.perform(put(BASE + "/" + uuid)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"countryOfOrigin\":\"Kenya\",\"foundedYear\":2003}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(BASE + "/" + uuid)).andExpect(status().isNoContent());
+        mockMvc.perform(delete(BASE + "/" + uuid)).andExpect(status().isNotFound());
+
+        assertWithinBudget("update", 2);
+        assertWithinBudget("patch", 2);
+        assertWithinBudget("deleteByUuid", 2);
+    }
+
+    @Test
+    void batchDeleteAndImport_StayWithinBudget() throws Exception {
+        String first = create(name).get("uuid").asText();
+        String second = create(name + " II").get("uuid").asText();
+
+        mockMvc.perform(delete(BASE + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"" + first + "\",\"" + second + "\",\"" + UUID.randomUUID() + "\"]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post(BASE + "/import")
+                        .contentType("text/csv")
+                        .content("name,country_of_origin,founded_year\n" + name + " III,Kenya,2001\n,Nowhere,1999\n"))
+                .andExpect(status().isOk());
+
+        assertWithinBudget("deleteAll", 2);
+        assertWithinBudget("importCsv", 7);
+    }
+
+    private JsonNode create(String brandName) throws Exception {
+        return objectMapper.readTree(createRequest(brandName).getResponse().getContentAsString());
+    }
+
+    private MvcResult createRequest(String brandName) throws Exception {
+        return mockMvc.perform(post(BASE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + brandName + "\",\"countryOfOrigin\":\"Kenya\",\"foundedYear\":2000}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+    }
+
+    private void assertWithinBudget(String handler, int budget) {
+        DistributionSummary statements = meterRegistry.get(StatementBudgetInterceptor.STATEMENTS)
+                .tag("handler", "CarBrandController." + handler)
+                .summary();
+        assertTrue(statements.count() > 0, handler + " was not measured");
+        assertTrue(statements.max() <= budget, handler + " ran " + statements.max() + " statements");
+        assertEquals(0, meterRegistry.find(StatementBudgetInterceptor.OVER_BUDGET)
+                .tag("handler", "CarBrandController." + handler)
+                .counters().size());
+    }
+}
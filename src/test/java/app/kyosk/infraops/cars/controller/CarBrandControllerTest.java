@@ -1,27 +1,71 @@
 package app.kyosk.infraops.cars.controller;
 
+import app.kyosk.infraops.cars.cache.CarBrandPageCache;
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.BatchDeleteResult;
+import app.kyosk.infraops.cars.dto.BatchItemResult;
+import app.kyosk.infraops.cars.dto.BatchResult;
 import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandFilter;
+import app.kyosk.infraops.cars.dto.CarBrandPatch;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.dto.ImportResult;
+import app.kyosk.infraops.cars.dto.LookupResult;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.exception.CarBrandNotFoundException;
+import app.kyosk.infraops.cars.exception.InvalidSearchQueryException;
+import app.kyosk.infraops.cars.exception.VersionConflictException;
+import app.kyosk.infraops.cars.export.CarBrandExporter;
+import app.kyosk.infraops.cars.export.ExportFormat;
+import app.kyosk.infraops.cars.feed.CarBrandChangeFeed;
+import app.kyosk.infraops.cars.importer.CarBrandImporter;
+import app.kyosk.infraops.cars.repository.CarBrandField;
+import app.kyosk.infraops.cars.repository.CarBrandSortField;
 import app.kyosk.infraops.cars.services.CarBrandService;
+import app.kyosk.infraops.cars.util.ETags;
+import app.kyosk.infraops.cars.util.KeysetPage;
+import app.kyosk.infraops.cars.util.PageCursor;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,6 +77,20 @@ class CarBrandControllerTest {
     @Mock
     private CarBrandService carBrandService;
 
+    @Mock
+    private CarBrandExporter carBrandExporter;
+
+    @Mock
+    private CarBrandImporter carBrandImporter;
+
+    @Mock
+    private CarBrandChangeFeed carBrandChangeFeed;
+
+    private final CarBrandProperties properties = new CarBrandProperties();
+
+    @Spy
+    private CarBrandPageCache carBrandPageCache = new CarBrandPageCache(properties, Jackson2ObjectMapperBuilder.json().build());
+
     @InjectMocks
     private CarBrandController carBrandController;
 
@@ -49,7 +107,7 @@ class CarBrandControllerTest {
     @Test
     void createCarBrand_ShouldReturnCreatedCarBrand() throws Exception {
         UUID uuid = UUID.randomUUID();
-        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null);
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null, 0L);
         when(carBrandService.save(any(CarBrandDTO.class))).thenReturn(carBrandDTO);
 
         mockMvc.perform(post("/api/v1/car-brands")
@@ -61,14 +119,32 @@ class CarBrandControllerTest {
                 .andExpect(jsonPath("$.name").value("Toyota"));
     }
 
+    @Test
+    void createOrUpdateAll_ShouldReturnPerItemResults() throws Exception {
+        CarBrandDTO created = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        BatchResult result = BatchResult.from(List.of(
+                BatchItemResult.created(0, created),
+                BatchItemResult.rejected(1, "Duplicate name in batch: Toyota")));
+        when(carBrandService.saveAll(anyList())).thenReturn(result);
+
+        mockMvc.perform(post("/api/v1/car-brands/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(created, created))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[1].error").value("Duplicate name in batch: Toyota"));
+    }
+
     @Test
     void getAllCarBrandsPaged_ShouldReturnPagedResponse() throws Exception {
         UUID uuid = UUID.randomUUID();
-        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null);
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null, 0L);
         PageRequest pageable = PageRequest.of(0, 10);
         Page<CarBrandDTO> page = new PageImpl<>(List.of(carBrandDTO), pageable, 1);
 
-        when(carBrandService.findAll(pageable)).thenReturn(page);
+        when(carBrandService.findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL)).thenReturn(page);
 
         mockMvc.perform(get("/api/v1/car-brands")
                         .param("page", "0")
@@ -79,11 +155,290 @@ class CarBrandControllerTest {
                 .andExpect(jsonPath("$.links.self").value("http://localhost/api/v1/car-brands?page=0&size=10"));
     }
 
+    @Test
+    void getAllCarBrandsPaged_ShouldRenderOnlyRequestedLinksAndKeepSort() throws Exception {
+        CarBrandDTO carBrandDTO = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        when(carBrandService.findAll(any(Pageable.class), any(CarBrandFilter.class), any()))
+                .thenReturn(new PageImpl<>(List.of(carBrandDTO), PageRequest.of(0, 1), 3));
+
+        mockMvc.perform(get("/api/v1/car-brands?sort=name,asc&links=self,next&page=0&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.links.self").value("http://localhost/api/v1/car-brands?sort=name,asc&links=self,next&page=0&size=1"))
+                .andExpect(jsonPath("$.links.next").value("http://localhost/api/v1/car-brands?sort=name,asc&links=self,next&page=1&size=1"))
+                .andExpect(jsonPath("$.links.first").doesNotExist())
+                .andExpect(jsonPath("$.links.last").doesNotExist());
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldRejectUnknownLinkRelation() throws Exception {
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .param("links", "up"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldServeHotPageFromCacheUntilWrite() throws Exception {
+        CarBrandDTO carBrandDTO = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(carBrandService.currentRevision()).thenReturn(7L);
+        when(carBrandService.findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL)).thenReturn(new PageImpl<>(List.of(carBrandDTO), pageable, 1));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/v1/car-brands?page=0&size=10"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"r7\""))
+                    .andExpect(jsonPath("$.content[0].name").value("Toyota"));
+        }
+        verify(carBrandService, times(1)).currentRevision();
+        verify(carBrandService, times(1)).findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL);
+
+        carBrandPageCache.onChange(CarBrandChange.updated(carBrandDTO.uuid()));
+        mockMvc.perform(get("/api/v1/car-brands?page=0&size=10"))
+                .andExpect(status().isOk());
+
+        verify(carBrandService, times(2)).findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL);
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldAnswerConditionalHitWithoutDatabase() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(carBrandService.currentRevision()).thenReturn(7L);
+        when(carBrandService.findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL)).thenReturn(new PageImpl<>(List.of(), pageable, 0));
+        mockMvc.perform(get("/api/v1/car-brands?page=0&size=10"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/car-brands?page=0&size=10")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"r7\""))
+                .andExpect(status().isNotModified());
+
+        verify(carBrandService, times(1)).currentRevision();
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldRenderCborOutsideThePageCache() throws Exception {
+        PageRequest pageable = PageRequest.of(0, 10);
+        CarBrandDTO carBrandDTO = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        when(carBrandService.findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL))
+                .thenReturn(new PageImpl<>(List.of(carBrandDTO), pageable, 1));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/car-brands?page=0&size=10")
+                        .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        JsonNode body = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Toyota", body.get("content").get(0).get("name").asText());
+        // The cached bytes are JSON, so they are neither served nor stored for a CBOR client
+        verify(carBrandPageCache, never()).put(any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldServeGzippedHotPage() throws Exception {
+        properties.getPageCache().setGzipMinSize(0);
+        PageRequest pageable = PageRequest.of(0, 10);
+        CarBrandDTO carBrandDTO = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        when(carBrandService.findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL)).thenReturn(new PageImpl<>(List.of(carBrandDTO), pageable, 1));
+
+        byte[] body = mockMvc.perform(get("/api/v1/car-brands?page=0&size=10")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (InputStream json = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertTrue(new String(json.readAllBytes(), StandardCharsets.UTF_8).contains("\"name\":\"Toyota\""));
+        }
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldNotCacheDeepPages() throws Exception {
+        PageRequest pageable = PageRequest.of(50, 10);
+        when(carBrandService.findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL)).thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/v1/car-brands?page=50&size=10"))
+                    .andExpect(status().isOk());
+        }
+
+        verify(carBrandService, times(2)).findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL);
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldReturnNotModifiedForCurrentRevision() throws Exception {
+        when(carBrandService.currentRevision()).thenReturn(42L);
+
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"r2a\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"r2a\""));
+
+        verify(carBrandService, never()).findAll(any(Pageable.class), any(CarBrandFilter.class), any());
+    }
+
+    @Test
+    void getAllCarBrandsSliced_ShouldSkipTotals() throws Exception {
+        CarBrandDTO carBrandDTO = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(carBrandService.findAllSlice(pageable, CarBrandFilter.NONE, CarBrandField.ALL)).thenReturn(new SliceImpl<>(List.of(carBrandDTO), pageable, false));
+
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .param("paging", "slice")
+                        .param("page", "0")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Toyota"))
+                .andExpect(jsonPath("$.metadata.totalKind").value("ABSENT"))
+                .andExpect(jsonPath("$.metadata.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.links.self").value("http://localhost/api/v1/car-brands?paging=slice&page=0&size=10"));
+
+        verify(carBrandService, never()).findAll(any(Pageable.class), any(CarBrandFilter.class), any());
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldPassFiltersAndKeepThemInLinks() throws Exception {
+        CarBrandDTO carBrandDTO = new CarBrandDTO(UUID.randomUUID(), "Toyota", "Japan", 1937, null, null, 0L);
+        PageRequest pageable = PageRequest.of(0, 1);
+        CarBrandFilter filter = new CarBrandFilter("Japan", 1900, 1950);
+        when(carBrandService.findAll(pageable, filter, CarBrandField.ALL)).thenReturn(new PageImpl<>(List.of(carBrandDTO), pageable, 2));
+
+        mockMvc.perform(get("/api/v1/car-brands?countryOfOrigin=Japan&foundedYearFrom=1900&foundedYearTo=1950&page=0&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Toyota"))
+                .andExpect(jsonPath("$.links.next").value(
+                        "http://localhost/api/v1/car-brands?countryOfOrigin=Japan&foundedYearFrom=1900&foundedYearTo=1950&page=1&size=1"));
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldRejectInvertedYearRange() throws Exception {
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .param("foundedYearFrom", "2000")
+                        .param("foundedYearTo", "1900"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(carBrandService);
+    }
+
+    @Test
+    void getAllCarBrands_ShouldRejectUnknownPagingMode() throws Exception {
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .param("paging", "sideways"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllCarBrandsPaged_ShouldNarrowEveryBrandToSelectedFields() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        PageRequest pageable = PageRequest.of(0, 10);
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", null, null, null, null, null);
+        when(carBrandService.findAllSlice(pageable, CarBrandFilter.NONE, EnumSet.of(CarBrandField.UUID, CarBrandField.NAME)))
+                .thenReturn(new SliceImpl<>(List.of(carBrandDTO), pageable, false));
+
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .param("paging", "slice")
+                        .param("size", "10")
+                        .param("fields", "uuid, name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].uuid").value(uuid.toString()))
+                .andExpect(jsonPath("$.content[0].name").value("Toyota"))
+                .andExpect(jsonPath("$.content[0].countryOfOrigin").doesNotExist())
+                .andExpect(jsonPath("$.content[0].version").doesNotExist());
+    }
+
+    @Test
+    void getAllCarBrandsByCursor_ShouldReturnCursorLinks() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null, 0L);
+        PageCursor after = new PageCursor(CarBrandSortField.NAME, Sort.Direction.ASC, "Tesla", 32L);
+        KeysetPage<CarBrandDTO> page = new KeysetPage<>(List.of(carBrandDTO), 1,
+                Sort.by(Sort.Order.asc("name")), "nextToken", "previousToken");
+
+        when(carBrandService.findAllByCursor(any(), eq(CarBrandFilter.NONE), eq(after), isNull(), eq(CarBrandField.ALL))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .param("after", after.encode())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Toyota"))
+                .andExpect(jsonPath("$.metadata.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.links.next").value("http://localhost/api/v1/car-brands?after=nextToken&size=1"))
+                .andExpect(jsonPath("$.links.previous").value("http://localhost/api/v1/car-brands?before=previousToken&size=1"));
+    }
+
+    @Test
+    void getAllCarBrandsByCursor_ShouldRejectMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/car-brands")
+                        .param("after", "not a cursor!"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(carBrandService);
+    }
+
+    @Test
+    void search_ShouldReturnSuggestions() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        when(carBrandService.search("toy", 5)).thenReturn(List.of(new CarBrandSuggestion(uuid, "Toyota")));
+
+        mockMvc.perform(get("/api/v1/car-brands/search")
+                        .param("q", "toy")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uuid").value(uuid.toString()))
+                .andExpect(jsonPath("$[0].name").value("Toyota"));
+    }
+
+    @Test
+    void search_ShouldRejectInvalidQuery() throws Exception {
+        when(carBrandService.search(" ", 10)).thenThrow(new InvalidSearchQueryException("The search query must not be blank"));
+
+        mockMvc.perform(get("/api/v1/car-brands/search")
+                        .param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void changes_ShouldResumeAfterLastEventId() throws Exception {
+        when(carBrandChangeFeed.subscribe(41L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/car-brands/changes")
+                        .header("Last-Event-ID", "41")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(carBrandChangeFeed).subscribe(41L);
+    }
+
+    @Test
+    void changes_ShouldPreferTheAfterParameterAndStartAtTheHeadWithoutEither() throws Exception {
+        when(carBrandChangeFeed.subscribe(any())).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/car-brands/changes")
+                        .header("Last-Event-ID", "41")
+                        .param("after", "7"))
+                .andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/v1/car-brands/changes"))
+                .andExpect(request().asyncStarted());
+
+        verify(carBrandChangeFeed).subscribe(7L);
+        verify(carBrandChangeFeed).subscribe(isNull());
+    }
+
+    @Test
+    void changes_ShouldRejectMalformedLastEventId() throws Exception {
+        mockMvc.perform(get("/api/v1/car-brands/changes")
+                        .header("Last-Event-ID", "abc"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(carBrandChangeFeed);
+    }
+
     @Test
     void getCarBrandByUuid_ShouldReturnCarBrand() throws Exception {
         UUID uuid = UUID.randomUUID();
-        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null);
-        when(carBrandService.findByUuid(uuid)).thenReturn(Optional.of(carBrandDTO));
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null, 0L);
+        when(carBrandService.findByUuid(uuid, CarBrandField.ALL)).thenReturn(Optional.of(carBrandDTO));
 
         mockMvc.perform(get("/api/v1/car-brands/" + uuid))
                 .andExpect(status().isOk())
@@ -92,10 +447,59 @@ class CarBrandControllerTest {
                 .andExpect(jsonPath("$.name").value("Toyota"));
     }
 
+    @Test
+    void getCarBrandByUuid_ShouldWriteOnlySelectedFields() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", null, null, null, null, 3L);
+        when(carBrandService.findByUuid(uuid, EnumSet.of(CarBrandField.NAME, CarBrandField.COUNTRY_OF_ORIGIN)))
+                .thenReturn(Optional.of(carBrandDTO));
+
+        mockMvc.perform(get("/api/v1/car-brands/" + uuid).param("fields", "name,countryOfOrigin"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETags.ofVersion(3)))
+                // A selected null is still written, the properties not selected are not written at all
+                .andExpect(content().json("{\"name\":\"Toyota\",\"countryOfOrigin\":null}", true));
+    }
+
+    @Test
+    void getCarBrandByUuid_ShouldRejectUnknownField() throws Exception {
+        mockMvc.perform(get("/api/v1/car-brands/" + UUID.randomUUID()).param("fields", "name,colour"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(carBrandService);
+    }
+
+    @Test
+    void getCarBrandByUuid_ShouldReturnETag() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 1, 11, 10, 42);
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, updatedAt, updatedAt, 3L);
+        when(carBrandService.findByUuid(uuid, CarBrandField.ALL)).thenReturn(Optional.of(carBrandDTO));
+
+        mockMvc.perform(get("/api/v1/car-brands/" + uuid))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETags.ofVersion(3)));
+    }
+
+    @Test
+    void getCarBrandByUuid_ShouldReturnNotModifiedWithoutBody() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO carBrandDTO = new CarBrandDTO(uuid, "Toyota", "Japan", 1937, null, null, 3L);
+        when(carBrandService.findByUuid(uuid, CarBrandField.ALL)).thenReturn(Optional.of(carBrandDTO));
+
+        mockMvc.perform(get("/api/v1/car-brands/" + uuid)
+                        .header(HttpHeaders.IF_NONE_MATCH, ETags.ofVersion(3)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETags.ofVersion(3)))
+                .andExpect(content().string(""));
+
+        verify(carBrandService, times(1)).findByUuid(uuid, CarBrandField.ALL);
+    }
+
     @Test
     void getCarBrandByUuid_ShouldReturnNotFound() throws Exception {
         UUID uuid = UUID.randomUUID();
-        when(carBrandService.findByUuid(uuid)).thenReturn(Optional.empty());
+        when(carBrandService.findByUuid(uuid, CarBrandField.ALL)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/v1/car-brands/" + uuid))
                 .andExpect(status().isNotFound());
@@ -104,7 +508,7 @@ class CarBrandControllerTest {
     @Test
     void updateCarBrand_ShouldReturnUpdatedCarBrand() throws Exception {
         UUID uuid = UUID.randomUUID();
-        CarBrandDTO updatedCarBrandDTO = new CarBrandDTO(uuid, "Updated Toyota", "Updated Japan", 1938, null, null);
+        CarBrandDTO updatedCarBrandDTO = new CarBrandDTO(uuid, "Updated Toyota", "Updated Japan", 1938, null, null, 0L);
         when(carBrandService.update(eq(uuid), any(CarBrandDTO.class))).thenReturn(updatedCarBrandDTO);
 
         mockMvc.perform(put("/api/v1/car-brands/" + uuid)
@@ -115,6 +519,62 @@ class CarBrandControllerTest {
                 .andExpect(jsonPath("$.name").value("Updated Toyota"));
     }
 
+    @Test
+    void updateCarBrand_ShouldFailPreconditionOnStaleETag() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO updatedCarBrandDTO = new CarBrandDTO(uuid, "Updated Toyota", "Updated Japan", 1938, null, null, null);
+        when(carBrandService.update(eq(uuid), any(CarBrandDTO.class))).thenThrow(new VersionConflictException(uuid, 2, 3));
+
+        mockMvc.perform(put("/api/v1/car-brands/" + uuid)
+                        .header(HttpHeaders.IF_MATCH, ETags.ofVersion(2))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedCarBrandDTO)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(carBrandService).update(uuid, updatedCarBrandDTO.withVersion(2L));
+    }
+
+    @Test
+    void updateCarBrand_ShouldReturnConflictOnStaleBodyVersion() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO updatedCarBrandDTO = new CarBrandDTO(uuid, "Updated Toyota", "Updated Japan", 1938, null, null, 2L);
+        when(carBrandService.update(eq(uuid), any(CarBrandDTO.class))).thenThrow(new VersionConflictException(uuid, 2, 3));
+
+        mockMvc.perform(put("/api/v1/car-brands/" + uuid)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedCarBrandDTO)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void updateCarBrand_ShouldReturnNotFound() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO updatedCarBrandDTO = new CarBrandDTO(uuid, "Updated Toyota", "Updated Japan", 1938, null, null, null);
+        when(carBrandService.update(eq(uuid), any(CarBrandDTO.class))).thenThrow(new CarBrandNotFoundException(uuid));
+
+        mockMvc.perform(put("/api/v1/car-brands/" + uuid)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedCarBrandDTO)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void patchCarBrand_ShouldOnlySendPresentFields() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO patched = new CarBrandDTO(uuid, "Toyota", "Japan", null, null, null, 4L);
+        when(carBrandService.patch(eq(uuid), any(CarBrandPatch.class))).thenReturn(patched);
+
+        mockMvc.perform(patch("/api/v1/car-brands/" + uuid)
+                        .header(HttpHeaders.IF_MATCH, ETags.ofVersion(3))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"foundedYear\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETags.ofVersion(4)))
+                .andExpect(jsonPath("$.version").value(4));
+
+        verify(carBrandService).patch(uuid, new CarBrandPatch(null, null, Optional.empty(), 3L));
+    }
+
     @Test
     void deleteCarBrandByUuid_ShouldReturnNoContent() throws Exception {
         UUID uuid = UUID.randomUUID();
@@ -125,4 +585,80 @@ class CarBrandControllerTest {
 
         verify(carBrandService, times(1)).deleteByUuid(uuid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteCarBrandByUuid_ShouldReturnNotFoundWhenNothingWasDeleted() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        doThrow(new CarBrandNotFoundException(uuid)).when(carBrandService).deleteByUuid(uuid);
+
+        mockMvc.perform(delete("/api/v1/car-brands/" + uuid))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deleteAll_ShouldReturnDeletedCountAndMissingUuids() throws Exception {
+        UUID deleted = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        when(carBrandService.deleteAllByUuid(List.of(deleted, missing))).thenReturn(new BatchDeleteResult(1, List.of(missing)));
+
+        mockMvc.perform(delete("/api/v1/car-brands/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(deleted, missing))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1))
+                .andExpect(jsonPath("$.notFound[0]").value(missing.toString()));
+    }
+
+    @Test
+    void lookup_ShouldReturnFoundBrandsAndMissingUuids() throws Exception {
+        UUID found = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        CarBrandDTO carBrandDTO = new CarBrandDTO(found, "Toyota", "Japan", 1937, null, null, 0L);
+        when(carBrandService.findAllByUuid(List.of(missing, found)))
+                .thenReturn(new LookupResult(List.of(carBrandDTO), List.of(missing)));
+
+        mockMvc.perform(post("/api/v1/car-brands/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(missing, found))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.carBrands[0].name").value("Toyota"))
+                .andExpect(jsonPath("$.notFound[0]").value(missing.toString()));
+    }
+
+    @Test
+    void export_ShouldStreamRequestedFormatAsAttachment() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("uuid,name\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(carBrandExporter).export(eq(ExportFormat.CSV), eq(CarBrandField.ALL), any(OutputStream.class));
+
+        mockMvc.perform(get("/api/v1/car-brands/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"car-brands.csv\""))
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("uuid,name\n"));
+    }
+
+    @Test
+    void export_ShouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/car-brands/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(carBrandExporter);
+    }
+
+    @Test
+    void importCsv_ShouldReturnImportCounts() throws Exception {
+        when(carBrandImporter.importCsv(any(InputStream.class))).thenReturn(
+                new ImportResult(2, 1, 0, 1, List.of(new ImportResult.Rejection(3, "name is required"))));
+
+        mockMvc.perform(post("/api/v1/car-brands/import")
+                        .contentType("text/csv")
+                        .content("name,country_of_origin,founded_year\nToyota,Japan,1937\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.rejections[0].record").value(3));
+    }
+}
@@ -0,0 +1,69 @@
+package app.kyosk.infraops.cars.events;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.*;
+
+class CarBrandChangeNotifierTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CarBrandProperties properties;
+
+    private CarBrandChangeNotifier changeNotifier;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new CarBrandProperties();
+        properties.getNotifications().setEnabled(false);
+        changeNotifier = new CarBrandChangeNotifier(jdbcTemplate, new DataSourceProperties(), eventPublisher, properties);
+    }
+
+    @Test
+    void testPublishDeliversLocallyWithoutNotifyWhenDisabled() {
+        CarBrandChange change = CarBrandChange.created(UUID.randomUUID());
+
+        changeNotifier.publish(change);
+
+        verify(eventPublisher).publishEvent(change);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testPublishResetDeliversLocallyWithoutNotifyWhenDisabled() {
+        changeNotifier.publishReset();
+
+        verify(eventPublisher).publishEvent(new CarBrandChangeFeedReset());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testPublishAllIgnoresEmptyBatches() {
+        changeNotifier.publishAll(List.of());
+
+        verifyNoInteractions(eventPublisher, jdbcTemplate);
+    }
+
+    @Test
+    void testStartDoesNotListenWhenDisabled() {
+        changeNotifier.start();
+
+        assertFalse(changeNotifier.isRunning());
+    }
+}
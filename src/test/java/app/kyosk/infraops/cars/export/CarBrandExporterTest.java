@@ -0,0 +1,149 @@
+package app.kyosk.infraops.cars.export;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.exception.UnsupportedExportFormatException;
+import app.kyosk.infraops.cars.repository.CarBrandField;
+import app.kyosk.infraops.cars.services.CarBrandService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CarBrandExporterTest {
+
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    @Mock
+    private CarBrandService carBrandService;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private final CarBrandProperties properties = new CarBrandProperties();
+
+    private CarBrandExporter carBrandExporter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties.getExport().setColumnarBatchSize(1);
+        carBrandExporter = new CarBrandExporter(carBrandService, objectMapper, properties);
+        List<CarBrandDTO> rows = List.of(
+                new CarBrandDTO(FIRST, "Toyota", "Japan", 1937, CREATED_AT, CREATED_AT, 0L),
+                new CarBrandDTO(SECOND, "Rolls \"Royce\", Ltd", null, null, CREATED_AT, null, 0L));
+        doAnswer(invocation -> {
+            Consumer<CarBrandDTO> consumer = invocation.getArgument(1);
+            rows.forEach(consumer);
+            return null;
+        }).when(carBrandService).exportAll(any(), any());
+    }
+
+    @Test
+    void export_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        carBrandExporter.export(ExportFormat.NDJSON, CarBrandField.ALL, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("\n"));
+        assertEquals(FIRST, objectMapper.readValue(lines[0], CarBrandDTO.class).uuid());
+        assertEquals("Rolls \"Royce\", Ltd", objectMapper.readValue(lines[1], CarBrandDTO.class).name());
+    }
+
+    @Test
+    void export_ShouldWriteCsvWithHeaderAndQuoting() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        carBrandExporter.export(ExportFormat.CSV, CarBrandField.ALL, out);
+
+        assertEquals("""
+                uuid,name,country_of_origin,founded_year,created_at,updated_at
+                00000000-0000-0000-0000-000000000001,Toyota,Japan,1937,2024-01-02T03:04:05,2024-01-02T03:04:05
+                00000000-0000-0000-0000-000000000002,"Rolls ""Royce"", Ltd",,,2024-01-02T03:04:05,
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void from_ShouldRejectUnknownFormat() {
+        assertEquals(ExportFormat.CSV, ExportFormat.from("CSV"));
+        assertThrows(UnsupportedExportFormatException.class, () -> ExportFormat.from("xml"));
+    }
+
+    @Test
+    void export_ShouldWriteOnlySelectedFields() throws Exception {
+        Set<CarBrandField> fields = CarBrandField.parse("name,uuid");
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        carBrandExporter.export(ExportFormat.NDJSON, fields, json);
+        carBrandExporter.export(ExportFormat.CSV, fields, csv);
+
+        // Declaration order whatever the order asked for, and no other keys at all
+        assertTrue(json.toString(StandardCharsets.UTF_8).startsWith(
+                "{\"uuid\":\"00000000-0000-0000-0000-000000000001\",\"name\":\"Toyota\"}\n"));
+        assertEquals("""
+                uuid,name
+                00000000-0000-0000-0000-000000000001,Toyota
+                00000000-0000-0000-0000-000000000002,"Rolls ""Royce"", Ltd"
+                """, csv.toString(StandardCharsets.UTF_8));
+        verify(carBrandService, times(2)).exportAll(eq(fields), any());
+    }
+
+    @Test
+    void export_CsvLeavesOutVersionUnlessSelected() throws Exception {
+        carBrandExporter.export(ExportFormat.CSV, CarBrandField.ALL, new ByteArrayOutputStream());
+
+        verify(carBrandService).exportAll(eq(EnumSet.complementOf(EnumSet.of(CarBrandField.VERSION))), any());
+    }
+
+    @Test
+    void export_ShouldWriteOneCborItemPerBrand() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        carBrandExporter.export(ExportFormat.CBOR, CarBrandField.ALL, out);
+
+        List<CarBrandDTO> rows = new CBORMapper().findAndRegisterModules()
+                .readerFor(CarBrandDTO.class).<CarBrandDTO>readValues(out.toByteArray()).readAll();
+        assertEquals(List.of(FIRST, SECOND), rows.stream().map(CarBrandDTO::uuid).toList());
+        assertEquals("Rolls \"Royce\", Ltd", rows.get(1).name());
+    }
+
+    @Test
+    void export_ShouldWriteColumnarBatches() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        carBrandExporter.export(ExportFormat.COLUMNAR, CarBrandField.parse("name,foundedYear"), out);
+
+        // A batch size of one gives one item per brand, each with a single-entry array per selected property
+        List<Map<String, List<Object>>> batches = new CBORMapper()
+                .readerFor(Map.class).<Map<String, List<Object>>>readValues(out.toByteArray()).readAll();
+        assertEquals(List.of(
+                Map.of("name", List.of("Toyota"), "foundedYear", List.of(1937)),
+                Map.of("name", Collections.singletonList("Rolls \"Royce\", Ltd"), "foundedYear", Collections.singletonList(null))),
+                batches);
+    }
+}
@@ -0,0 +1,198 @@
+package app.kyosk.infraops.cars.feed;
+
+import app.kyosk.infraops.cars.cache.CarBrandPageCache;
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.controller.CarBrandController;
+import app.kyosk.infraops.cars.events.CarBrandChangesLogged;
+import app.kyosk.infraops.cars.exception.ChangeFeedFullException;
+import app.kyosk.infraops.cars.export.CarBrandExporter;
+import app.kyosk.infraops.cars.importer.CarBrandImporter;
+import app.kyosk.infraops.cars.services.CarBrandService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class CarBrandChangeFeedTest {
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private CarBrandProperties properties;
+    private CarBrandChangeFeed feed;
+    private MockMvc mockMvc;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        properties = new CarBrandProperties();
+        feed = new CarBrandChangeFeed(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                properties, Jackson2ObjectMapperBuilder.json().build());
+        CarBrandController controller = new CarBrandController(mock(CarBrandService.class), mock(CarBrandExporter.class),
+                mock(CarBrandImporter.class), mock(CarBrandPageCache.class), feed);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    void log_RecordsEveryWriteInOrder() {
+        long before = lastId();
+        jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Feed One', 'Kenya'), ('Feed Two', 'Kenya')");
+        jdbcTemplate.update("UPDATE car_brand SET founded_year = 2001 WHERE name = 'Feed One'");
+        jdbcTemplate.update("DELETE FROM car_brand WHERE name = 'Feed Two'");
+
+        List<Map<String, Object>> logged = jdbcTemplate.queryForList(
+                "SELECT type, uuid FROM car_brand_change WHERE id > ? ORDER BY id", before);
+
+        assertEquals(List.of("CREATED", "CREATED", "UPDATED", "DELETED"), logged.stream().map(row -> row.get("type")).toList());
+        assertEquals(uuidOf("Feed One"), logged.get(2).get("uuid"));
+    }
+
+    @Test
+    void log_SkipsBulkLoadsThatOptOut() {
+        long before = lastId();
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL infraops.skip_change_log = on");
+            jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Feed Bulk', 'Kenya')");
+        });
+
+        assertEquals(before, lastId());
+    }
+
+    @Test
+    void assignSequences_NumbersEntriesInCommitOrder() throws Exception {
+        long before = lastSequence();
+        try (Connection slow = dataSource.getConnection()) {
+            slow.setAutoCommit(false);
+            try (Statement statement = slow.createStatement()) {
+                statement.executeUpdate("INSERT INTO car_brand (name, country_of_origin) VALUES ('Feed Slow', 'Kenya')");
+            }
+            // Logged after the slow write but committed first
+            jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Feed Fast', 'Kenya')");
+            feed.assignSequences();
+            slow.commit();
+        }
+        feed.assignSequences();
+
+        assertEquals(List.of(uuidOf("Feed Fast"), uuidOf("Feed Slow")), jdbcTemplate.queryForList(
+                "SELECT uuid FROM car_brand_change WHERE sequence > ? ORDER BY sequence", UUID.class, before));
+    }
+
+    @Test
+    void subscribe_DeliversNewChangesAsEvents() throws Exception {
+        // Subscriptions join asynchronously, naming the current head keeps the insert from racing the join
+        MvcResult result = subscribe(lastSequence());
+        jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Feed Live', 'Kenya')");
+        feed.onChangesLogged(new CarBrandChangesLogged());
+
+        String content = awaitContent(result, "event:created");
+        assertTrue(content.contains("id:" + lastSequence()));
+        assertTrue(content.contains(uuidOf("Feed Live").toString()));
+    }
+
+    @Test
+    void subscribe_AfterASequence_ReplaysOnlyWhatFollows() throws Exception {
+        jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Feed Replay A', 'Kenya')");
+        long first = lastSequence();
+        jdbcTemplate.update("UPDATE car_brand SET founded_year = 1999 WHERE name = 'Feed Replay A'");
+        jdbcTemplate.update("DELETE FROM car_brand WHERE name = 'Feed Replay A'");
+
+        String content = awaitContent(subscribe(first), "event:deleted");
+
+        assertFalse(content.contains("id:" + first + "\n"));
+        assertTrue(content.contains("id:" + (first + 1) + "\nevent:updated"));
+        assertTrue(content.contains("id:" + lastSequence() + "\nevent:deleted"));
+    }
+
+    @Test
+    void subscribe_AfterPrunedEntries_TellsTheClientToReList() throws Exception {
+        jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Feed Pruned A', 'Kenya'), ('Feed Pruned B', 'Kenya')");
+        long last = lastSequence();
+        jdbcTemplate.update("DELETE FROM car_brand_change WHERE sequence < ?", last);
+
+        String content = awaitContent(subscribe(last - 2), "event:reset");
+
+        assertTrue(content.contains("id:" + last + "\nevent:reset"));
+        assertFalse(content.contains("event:created"));
+    }
+
+    @Test
+    void subscribe_BeyondTheLimit_IsTurnedAway() {
+        properties.getFeed().setMaxSubscribers(1);
+        feed.subscribe(null);
+
+        assertThrows(ChangeFeedFullException.class, () -> feed.subscribe(null));
+    }
+
+    private MvcResult subscribe(Long after) throws Exception {
+        return mockMvc.perform(after == null
+                        ? get("/api/v1/car-brands/changes")
+                        : get("/api/v1/car-brands/changes").param("after", after.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), "no " + expected + " in " + content);
+        return content;
+    }
+
+    private long lastSequence() {
+        feed.assignSequences();
+        return jdbcTemplate.queryForObject("SELECT coalesce(max(sequence), 0) FROM car_brand_change", Long.class);
+    }
+
+    private long lastId() {
+        return jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM car_brand_change", Long.class);
+    }
+
+    private UUID uuidOf(String name) {
+        return jdbcTemplate.queryForObject("SELECT uuid FROM car_brand WHERE name = ?", UUID.class, name);
+    }
+}
@@ -0,0 +1,100 @@
+package app.kyosk.infraops.cars.generator;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarBrandDataGeneratorTest {
+
+    private static final String DATASET_CHECKSUM = """
+            SELECT md5(string_agg(concat_ws(',', id, uuid, name, country_of_origin, founded_year, created_at), '|' ORDER BY id))
+            FROM car_brand WHERE id >= 1000000000""";
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private CarBrandProperties properties;
+    private CarBrandDataGenerator generator;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS car_brand_generator_progress");
+        jdbcTemplate.update("DELETE FROM car_brand WHERE id >= 1000000000");
+        properties = new CarBrandProperties();
+        properties.getGenerator().setRows(2_500);
+        properties.getGenerator().setChunkSize(1_000);
+        properties.getGenerator().setThreads(2);
+        generator = new CarBrandDataGenerator(dataSource, properties, null);
+    }
+
+    @Test
+    void generate_WritesEveryRowAndAdvancesTheIdSequence() throws Exception {
+        assertEquals(2_500, generator.generate());
+
+        assertEquals(2_500, jdbcTemplate.queryForObject("SELECT count(*) FROM car_brand WHERE id >= 1000000000", Long.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT count(*) FROM car_brand_generator_progress", Long.class));
+        assertTrue(jdbcTemplate.queryForObject("SELECT last_value FROM car_brand_id_seq", Long.class) >= 1_000_002_499L);
+        assertEquals("RESET", jdbcTemplate.queryForObject(
+                "SELECT type FROM car_brand_change ORDER BY id DESC LIMIT 1", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM car_brand_change"
+                        + " WHERE uuid IN (SELECT uuid FROM car_brand WHERE id >= 1000000000)", Long.class));
+    }
+
+    @Test
+    void generate_WithTheSameSeed_ProducesTheSameDataset() throws Exception {
+        generator.generate();
+        String first = jdbcTemplate.queryForObject(DATASET_CHECKSUM, String.class);
+
+        setUp();
+        properties.getGenerator().setThreads(1);
+        generator.generate();
+
+        assertEquals(first, jdbcTemplate.queryForObject(DATASET_CHECKSUM, String.class));
+    }
+
+    @Test
+    void generate_AfterAnInterruptedRun_OnlyWritesTheMissingChunks() throws Exception {
+        generator.generate();
+        String complete = jdbcTemplate.queryForObject(DATASET_CHECKSUM, String.class);
+        // As if the run had stopped before the second chunk committed
+        jdbcTemplate.update("DELETE FROM car_brand WHERE id >= 1000001000 AND id < 1000002000");
+        jdbcTemplate.update("DELETE FROM car_brand_generator_progress WHERE chunk = 1");
+
+        assertEquals(1_000, generator.generate());
+        assertEquals(complete, jdbcTemplate.queryForObject(DATASET_CHECKSUM, String.class));
+        assertEquals(0, generator.generate());
+    }
+
+    @Test
+    void generate_WithAnotherSeed_RefusesToMixDatasets() throws Exception {
+        generator.generate();
+        properties.getGenerator().setSeed(7);
+
+        assertThrows(IllegalStateException.class, () -> generator.generate());
+    }
+}
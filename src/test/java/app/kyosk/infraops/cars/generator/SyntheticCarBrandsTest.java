@@ -0,0 +1,72 @@
+package app.kyosk.infraops.cars.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticCarBrandsTest {
+
+    private static final long FIRST_ID = 1_000_000_000L;
+
+    @Test
+    void sameSeedAndIndex_GiveTheSameRow() {
+        assertEquals(row(new SyntheticCarBrands(42), 12_345), row(new SyntheticCarBrands(42), 12_345));
+        assertNotEquals(row(new SyntheticCarBrands(42), 12_345), row(new SyntheticCarBrands(43), 12_345));
+    }
+
+    @Test
+    void rowsAreIndependentOfTheOrderTheyAreGeneratedIn() {
+        SyntheticCarBrands brands = new SyntheticCarBrands(7);
+        String forward = row(brands, 10) + row(brands, 11);
+        String backward = row(brands, 11);
+
+        assertEquals(forward, row(brands, 10) + backward);
+    }
+
+    @Test
+    void rowsHaveSevenValidColumnsAndUniqueNamesAndUuids() {
+        SyntheticCarBrands brands = new SyntheticCarBrands(42);
+        Set<String> names = new HashSet<>();
+        Set<UUID> uuids = new HashSet<>();
+        for (long index = 0; index < 50_000; index++) {
+            String[] columns = row(brands, index).stripTrailing().split(",", -1);
+
+            assertEquals(7, columns.length);
+            assertEquals(FIRST_ID + index, Long.parseLong(columns[0]));
+            UUID uuid = UUID.fromString(columns[1]);
+            assertEquals(4, uuid.version());
+            assertTrue(uuids.add(uuid));
+            assertTrue(names.add(columns[2]), "duplicate name " + columns[2]);
+            assertTrue(columns[2].length() <= 100);
+            int foundedYear = Integer.parseInt(columns[4]);
+            assertTrue(foundedYear >= 1850 && foundedYear <= 2024, "founded year " + foundedYear);
+        }
+    }
+
+    @Test
+    void countriesFollowTheSeedDistribution() {
+        SyntheticCarBrands brands = new SyntheticCarBrands(42);
+        Map<String, Integer> counts = new HashMap<>();
+        int rows = 52_000;
+        for (long index = 0; index < rows; index++) {
+            counts.merge(row(brands, index).split(",")[3], 1, Integer::sum);
+        }
+
+        assertEquals(13, counts.size());
+        // 9 and 1 of the 52 seed brands
+        assertEquals(9_000, counts.get("United States"), 500);
+        assertEquals(1_000, counts.get("Romania"), 200);
+    }
+
+    private static String row(SyntheticCarBrands brands, long index) {
+        StringBuilder out = new StringBuilder();
+        brands.appendCsv(index, FIRST_ID, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package app.kyosk.infraops.cars.importer;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.ImportResult;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeNotifier;
+import app.kyosk.infraops.cars.exception.InvalidImportException;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CarBrandImporterTest {
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    @Mock
+    private CarBrandChangeNotifier changeNotifier;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CarBrandImporter carBrandImporter;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // The staging table lives until commit, so the import has to run in a transaction as it does behind the proxy
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        carBrandImporter = new CarBrandImporter(jdbcTemplate, changeNotifier, new CarBrandProperties());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCsv_ShouldInsertUpdateAndRejectInOnePass() {
+        String csv = """
+                name,country_of_origin,founded_year
+                Toyota,Japan,1937
+                Ford,United States,1904
+                Zagato Import Test,Italy,1919
+                "Bad, Year Motors",Italy,soon
+                ,Nowhere,1999
+                Dup Import Motors,Kenya,2001
+                Dup Import Motors,Kenya,2002
+                """;
+
+        ImportResult result = importCsv(csv);
+
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(1, result.unchanged());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(
+                new ImportResult.Rejection(4, "founded_year is not a whole number"),
+                new ImportResult.Rejection(5, "name is required"),
+                new ImportResult.Rejection(6, "name appears again in a later record")), result.rejections());
+
+        assertEquals(1904, jdbcTemplate.queryForObject("SELECT founded_year FROM car_brand WHERE name = 'Ford'", Integer.class));
+        Map<String, Object> dup = jdbcTemplate.queryForMap("SELECT country_of_origin, founded_year FROM car_brand WHERE name = 'Dup Import Motors'");
+        assertEquals(2002, dup.get("founded_year"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM car_brand WHERE name = 'Bad, Year Motors'", Integer.class));
+
+        ArgumentCaptor<Collection<CarBrandChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(changeNotifier).publishAll(changes.capture());
+        assertEquals(2, changes.getValue().stream().filter(change -> change.type() == CarBrandChange.Type.CREATED).count());
+        assertEquals(1, changes.getValue().stream().filter(change -> change.type() == CarBrandChange.Type.UPDATED).count());
+    }
+
+    @Test
+    void importCsv_ShouldAnnounceLargeImportsAsOneReset() {
+        CarBrandProperties properties = new CarBrandProperties();
+        properties.getCsvImport().setMaxAnnouncedChanges(1);
+        carBrandImporter = new CarBrandImporter(jdbcTemplate, changeNotifier, properties);
+        String csv = """
+                name,country_of_origin,founded_year
+                Reset Import One,Kenya,2001
+                Reset Import Two,Kenya,2002
+                """;
+        long lastLogged = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM car_brand_change", Long.class);
+
+        ImportResult result = importCsv(csv);
+
+        assertEquals(2, result.inserted());
+        verify(changeNotifier).publishReset();
+        verify(changeNotifier, never()).publishAll(any());
+        // The rows stay out of the change log, which gets one reset instead
+        assertEquals(List.of("RESET"), jdbcTemplate.queryForList(
+                "SELECT type FROM car_brand_change WHERE id > ? ORDER BY id", String.class, lastLogged));
+    }
+
+    @Test
+    void importCsv_ShouldRejectMalformedUploadAsAWhole() {
+        String csv = """
+                name,country_of_origin,founded_year
+                Malformed Import Motors,Kenya,2001,surplus
+                """;
+
+        assertThrows(InvalidImportException.class, () -> importCsv(csv));
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM car_brand WHERE name = 'Malformed Import Motors'", Integer.class));
+        verifyNoInteractions(changeNotifier);
+    }
+
+    private ImportResult importCsv(String csv) {
+        return transactionTemplate.execute(status ->
+                carBrandImporter.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,61 @@
+package app.kyosk.infraops.cars.jdbc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionBulkheadDataSourceTest {
+
+    private SimpleMeterRegistry registry;
+    private ConnectionBulkheadDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        registry = new SimpleMeterRegistry();
+        dataSource = new ConnectionBulkheadDataSource(target, 1, Duration.ofMillis(10), registry);
+    }
+
+    @Test
+    void holdsAPermitUntilTheConnectionIsClosed() throws Exception {
+        try (Connection ignored = dataSource.getConnection()) {
+            assertEquals(0.0, available());
+        }
+
+        assertEquals(1.0, available());
+        assertEquals(1, registry.get(ConnectionBulkheadDataSource.WAIT_TIMER).timer().count());
+    }
+
+    @Test
+    void returnsThePermitOnlyOnceWhenClosedTwice() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertEquals(1.0, available());
+    }
+
+    @Test
+    void rejectsWhenNoPermitFreesUpInTime() throws Exception {
+        try (Connection held = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+
+        assertEquals(1.0, registry.get(ConnectionBulkheadDataSource.REJECTED_COUNTER).counter().count());
+        // The rejected call never held a permit, so the one freed by the first connection is all there is
+        assertEquals(1.0, available());
+    }
+
+    private double available() {
+        return registry.get(ConnectionBulkheadDataSource.AVAILABLE_GAUGE).gauge().value();
+    }
+}
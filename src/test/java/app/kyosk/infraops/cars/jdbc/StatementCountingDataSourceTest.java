@@ -0,0 +1,112 @@
+package app.kyosk.infraops.cars.jdbc;
+
+import app.kyosk.infraops.cars.TestPostgres;
+import app.kyosk.infraops.cars.exception.StatementBudgetExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCountingDataSourceTest {
+
+    private StatementCountingDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new StatementCountingDataSource(TestPostgres.get().getPostgresDatabase());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void countsEveryExecutedStatementInsideTheScope() {
+        try (StatementCounter.Scope scope = StatementCounter.open("test", 10, false)) {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            jdbcTemplate.queryForObject("SELECT ?", Integer.class, 2);
+            jdbcTemplate.execute("SELECT 3");
+
+            assertEquals(3, scope.count());
+            assertFalse(scope.isOverBudget());
+        }
+    }
+
+    @Test
+    void countsABatchAsOneStatement() throws SQLException {
+        try (StatementCounter.Scope scope = StatementCounter.open("test", 10, false);
+             Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+            for (int i = 0; i < 3; i++) {
+                statement.setInt(1, i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+
+            assertEquals(1, scope.count());
+        }
+    }
+
+    @Test
+    void doesNotCountOutsideAScope() {
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+
+        try (StatementCounter.Scope scope = StatementCounter.open("test", 10, false)) {
+            assertEquals(0, scope.count());
+        }
+    }
+
+    @Test
+    void reportsAnOverrunWithoutFailingByDefault() {
+        try (StatementCounter.Scope scope = StatementCounter.open("test", 1, false)) {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            jdbcTemplate.queryForObject("SELECT 2", Integer.class);
+
+            assertEquals(2, scope.count());
+            assertTrue(scope.isOverBudget());
+        }
+    }
+
+    @Test
+    void failsAtTheStatementThatGoesOverBudget() {
+        try (StatementCounter.Scope ignored = StatementCounter.open("test", 1, true)) {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+
+            assertThrows(StatementBudgetExceededException.class,
+                    () -> jdbcTemplate.queryForObject("SELECT 2", Integer.class));
+        }
+    }
+
+    @Test
+    void nestedScopeRestoresTheOuterOneWhenClosed() {
+        try (StatementCounter.Scope outer = StatementCounter.open("outer", 10, false)) {
+            try (StatementCounter.Scope inner = StatementCounter.open("inner", 10, false)) {
+                jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                assertEquals(1, inner.count());
+            }
+            jdbcTemplate.queryForObject("SELECT 2", Integer.class);
+
+            assertEquals(1, outer.count());
+        }
+    }
+
+    @Test
+    void unwrapsToTheDriverConnection() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.isWrapperFor(PGConnection.class));
+            assertNotNull(connection.unwrap(PGConnection.class).getCopyAPI());
+        }
+    }
+
+    @Test
+    void queriesStillReturnTheirResults() {
+        try (StatementCounter.Scope ignored = StatementCounter.open("test", -1, true)) {
+            assertEquals(List.of(1, 2), jdbcTemplate.queryForList("SELECT * FROM (VALUES (1), (2)) v", Integer.class));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package app.kyosk.infraops.cars.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CarBrandRevisionTest {
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private CarBrandRepositoryCustomImpl repository;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new CarBrandRepositoryCustomImpl(new NamedParameterJdbcTemplate(jdbcTemplate), mock(EntityManager.class));
+    }
+
+    @Test
+    void findRevision_MovesWithEveryCommittedWrite() {
+        long before = repository.findRevision();
+        jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Revision One', 'Kenya')");
+        jdbcTemplate.update("UPDATE car_brand SET founded_year = 2001 WHERE name = 'Revision One'");
+
+        assertEquals(before + 2, repository.findRevision());
+    }
+
+    @Test
+    void findRevision_IgnoresRolledBackWrites() {
+        long before = repository.findRevision();
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Revision Rolled Back', 'Kenya')");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, repository.findRevision());
+    }
+
+    @Test
+    void foldRevisionDeltas_KeepsTheRevision() {
+        jdbcTemplate.update("INSERT INTO car_brand (name, country_of_origin) VALUES ('Revision Folded', 'Kenya')");
+        long before = repository.findRevision();
+
+        repository.foldRevisionDeltas();
+
+        assertEquals(before, repository.findRevision());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM car_brand_revision_delta", Long.class));
+    }
+}
@@ -0,0 +1,153 @@
+package app.kyosk.infraops.cars.search;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeFeedReset;
+import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CarBrandSearchIndexTest {
+
+    private static final CarBrandSuggestion TOYOTA = new CarBrandSuggestion(UUID.randomUUID(), "Toyota");
+    private static final CarBrandSuggestion TESLA = new CarBrandSuggestion(UUID.randomUUID(), "Tesla");
+    private static final CarBrandSuggestion SKODA = new CarBrandSuggestion(UUID.randomUUID(), "Škoda");
+    private static final CarBrandSuggestion SUBARU = new CarBrandSuggestion(UUID.randomUUID(), "Subaru");
+
+    @Mock
+    private CarBrandRepository carBrandRepository;
+
+    private CarBrandProperties.Search settings;
+    private CarBrandSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        settings = new CarBrandProperties.Search();
+        // Updates run inline so the tests see them straight away
+        searchIndex = new CarBrandSearchIndex(carBrandRepository, settings, Runnable::run);
+        when(carBrandRepository.findSuggestions(any())).thenReturn(List.of(TOYOTA, TESLA, SKODA, SUBARU));
+        searchIndex.onApplicationReady();
+    }
+
+    private List<String> names(String query, int limit) {
+        return searchIndex.search(query, limit, 3).orElseThrow().stream().map(CarBrandSuggestion::name).toList();
+    }
+
+    @Test
+    void testEmptyUntilLoaded() {
+        CarBrandSearchIndex unloaded = new CarBrandSearchIndex(carBrandRepository, settings, Runnable::run);
+
+        assertFalse(unloaded.isLoaded());
+        assertTrue(unloaded.search("toy", 10, 3).isEmpty());
+    }
+
+    @Test
+    void testPrefixIsCaseAndAccentInsensitive() {
+        assertEquals(List.of("Tesla", "Toyota"), names("T", 10));
+        assertEquals(List.of("Toyota"), names("TOY", 10));
+        assertEquals(List.of("Škoda"), names("sko", 10));
+    }
+
+    @Test
+    void testOneTypoStillMatches() {
+        assertEquals(List.of("Toyota"), names("toyto", 10));
+        assertEquals(List.of("Subaru"), names("sbaru", 10));
+        assertEquals(List.of("Tesla"), names("tesle", 10));
+    }
+
+    @Test
+    void testPrefixMatchesComeBeforeTypos() {
+        CarBrandSuggestion tsla = new CarBrandSuggestion(UUID.randomUUID(), "Tsla Motors");
+        when(carBrandRepository.findSuggestionsByUuidIn(anyCollection())).thenReturn(List.of(tsla));
+        searchIndex.onChange(CarBrandChange.created(tsla.uuid()));
+
+        // Tesla sorts first by name but is one insertion away, Tsla Motors starts with the query
+        assertEquals(List.of("Tsla Motors", "Tesla"), names("tsla", 10));
+    }
+
+    @Test
+    void testShortQueriesAreNotTypoTolerant() {
+        assertEquals(List.of(), names("tx", 10));
+    }
+
+    @Test
+    void testLimitIsApplied() {
+        assertEquals(1, names("t", 1).size());
+    }
+
+    @Test
+    void testChangesAreAppliedIncrementally() {
+        CarBrandSuggestion renamed = new CarBrandSuggestion(TOYOTA.uuid(), "Lexus");
+        when(carBrandRepository.findSuggestionsByUuidIn(anyCollection())).thenReturn(List.of(renamed));
+
+        searchIndex.onChange(CarBrandChange.updated(TOYOTA.uuid()));
+
+        assertEquals(List.of("Lexus"), names("lex", 10));
+        assertEquals(List.of("Tesla"), names("t", 10));
+    }
+
+    @Test
+    void testDeletedBrandsAreRemoved() {
+        when(carBrandRepository.findSuggestionsByUuidIn(anyCollection())).thenReturn(List.of());
+
+        searchIndex.onChange(CarBrandChange.deleted(TESLA.uuid()));
+
+        assertEquals(List.of("Toyota"), names("t", 10));
+    }
+
+    @Test
+    void testFeedResetReloads() {
+        when(carBrandRepository.findSuggestions(any())).thenReturn(List.of(TESLA));
+
+        searchIndex.onFeedReset(new CarBrandChangeFeedReset());
+
+        assertEquals(List.of("Tesla"), names("t", 10));
+    }
+
+    @Test
+    void testReconcileReloadsOnlyWhenTheRevisionMoved() {
+        when(carBrandRepository.findSuggestions(any())).thenReturn(List.of(TESLA));
+
+        searchIndex.reconcile();
+        assertEquals(List.of("Tesla", "Toyota"), names("t", 10));
+
+        // A write that announced no change, like generate-data
+        when(carBrandRepository.findRevision()).thenReturn(1L);
+        searchIndex.reconcile();
+        assertEquals(List.of("Tesla"), names("t", 10));
+    }
+
+    @Test
+    void testIndexIsDroppedPastItsBudget() {
+        settings.setMaxIndexedBrands(3);
+
+        searchIndex.onFeedReset(new CarBrandChangeFeedReset());
+
+        assertFalse(searchIndex.isLoaded());
+        assertTrue(searchIndex.search("toy", 10, 3).isEmpty());
+    }
+
+    @Test
+    void testEstimateOverBudgetSkipsTheLoad() {
+        settings.setMaxIndexedBrands(3);
+        when(carBrandRepository.estimateCount()).thenReturn(1_000L);
+        clearInvocations(carBrandRepository);
+
+        searchIndex.onFeedReset(new CarBrandChangeFeedReset());
+
+        assertFalse(searchIndex.isLoaded());
+        verify(carBrandRepository, never()).findSuggestions(any());
+    }
+}
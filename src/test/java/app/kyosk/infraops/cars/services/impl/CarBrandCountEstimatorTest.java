@@ -0,0 +1,59 @@
+package app.kyosk.infraops.cars.services.impl;
+
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CarBrandCountEstimatorTest {
+
+    @Mock
+    private CarBrandRepository carBrandRepository;
+
+    private CarBrandProperties properties;
+
+    private CarBrandCountEstimator countEstimator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new CarBrandProperties();
+        countEstimator = new CarBrandCountEstimator(carBrandRepository, properties);
+    }
+
+    @Test
+    void testEstimateUsesPlannerStatistics() {
+        when(carBrandRepository.estimateCount()).thenReturn(1_000_000L);
+
+        assertEquals(1_000_000L, countEstimator.estimate());
+        verify(carBrandRepository, never()).count();
+    }
+
+    @Test
+    void testEstimateCachesExactCountWithoutStatistics() {
+        // -1 is what PostgreSQL reports for a table that was never analyzed
+        when(carBrandRepository.estimateCount()).thenReturn(-1L);
+        when(carBrandRepository.count()).thenReturn(52L);
+
+        assertEquals(52L, countEstimator.estimate());
+        assertEquals(52L, countEstimator.estimate());
+        verify(carBrandRepository, times(1)).count();
+    }
+
+    @Test
+    void testEstimateRecountsOnceTtlExpired() {
+        properties.getPaging().setCountCacheTtl(Duration.ZERO);
+        when(carBrandRepository.estimateCount()).thenReturn(-1L);
+        when(carBrandRepository.count()).thenReturn(52L, 53L);
+
+        assertEquals(52L, countEstimator.estimate());
+        assertEquals(53L, countEstimator.estimate());
+    }
+}
@@ -1,22 +1,52 @@
 package app.kyosk.infraops.cars.services.impl;
 
+import app.kyosk.infraops.cars.cache.CarBrandCache;
+import app.kyosk.infraops.cars.config.CarBrandProperties;
+import app.kyosk.infraops.cars.dto.BatchDeleteResult;
+import app.kyosk.infraops.cars.dto.BatchItemResult;
+import app.kyosk.infraops.cars.dto.BatchResult;
 import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandFilter;
+import app.kyosk.infraops.cars.dto.CarBrandPatch;
+import app.kyosk.infraops.cars.dto.CarBrandSuggestion;
+import app.kyosk.infraops.cars.dto.LookupResult;
 import app.kyosk.infraops.cars.entity.CarBrand;
+import app.kyosk.infraops.cars.events.CarBrandChange;
+import app.kyosk.infraops.cars.events.CarBrandChangeNotifier;
+import app.kyosk.infraops.cars.exception.BatchTooLargeException;
+import app.kyosk.infraops.cars.exception.CarBrandNotFoundException;
+import app.kyosk.infraops.cars.exception.InvalidCarBrandException;
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
+import app.kyosk.infraops.cars.exception.InvalidSearchQueryException;
+import app.kyosk.infraops.cars.exception.VersionConflictException;
+import app.kyosk.infraops.cars.repository.CarBrandField;
 import app.kyosk.infraops.cars.repository.CarBrandRepository;
+import app.kyosk.infraops.cars.repository.CarBrandSortField;
+import app.kyosk.infraops.cars.repository.KeysetRow;
+import app.kyosk.infraops.cars.search.CarBrandSearchIndex;
+import app.kyosk.infraops.cars.util.KeysetPage;
+import app.kyosk.infraops.cars.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.util.Pair;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,12 +56,25 @@ class CarBrandServiceImplTest {
     @Mock
     private CarBrandRepository carBrandRepository;
 
+    @Mock
+    private CarBrandCountEstimator countEstimator;
+
+    @Mock
+    private CarBrandChangeNotifier changeNotifier;
+
+    @Mock
+    private CarBrandSearchIndex searchIndex;
+
+    private CarBrandCache carBrandCache;
+
     private CarBrandServiceImpl carBrandService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        carBrandService = new CarBrandServiceImpl(carBrandRepository);
+        carBrandCache = new CarBrandCache(new CarBrandProperties());
+        carBrandService = new CarBrandServiceImpl(carBrandRepository, countEstimator, carBrandCache, changeNotifier,
+                new CarBrandProperties(), searchIndex);
     }
 
     // Helper method to generate a sample CarBrandDTO
@@ -42,7 +85,8 @@ class CarBrandServiceImplTest {
                 "Japan",
                 1937,
                 LocalDateTime.now(),
-                LocalDateTime.now()
+                LocalDateTime.now(),
+                0L
         );
     }
 
@@ -55,6 +99,7 @@ class CarBrandServiceImplTest {
                 .foundedYear(1937)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
+                .version(0L)
                 .build();
     }
 
@@ -79,13 +124,77 @@ class CarBrandServiceImplTest {
         verify(carBrandRepository, times(1)).save(any(CarBrand.class));
     }
 
+    @Test
+    void testSaveAllCreatesUpdatesAndRejectsPerItem() {
+        UUID existingUuid = UUID.randomUUID();
+        CarBrand existingCarBrand = createCarBrand(existingUuid);
+        CarBrandDTO create = new CarBrandDTO(null, "Lexus", "Japan", 1989, null, null, 0L);
+        CarBrandDTO update = new CarBrandDTO(existingUuid, "Toyota", "Japan", 1938, null, null, 0L);
+        CarBrandDTO duplicate = new CarBrandDTO(null, "Lexus", "Japan", 1989, null, null, 0L);
+        CarBrandDTO invalid = new CarBrandDTO(null, " ", "Japan", null, null, null, 0L);
+
+        when(carBrandRepository.findAllByUuidIn(Set.of(existingUuid))).thenReturn(List.of(existingCarBrand));
+        when(carBrandRepository.findAllByNameIn(anyCollection())).thenReturn(List.of(existingCarBrand));
+
+        BatchResult result = carBrandService.saveAll(List.of(create, update, duplicate, invalid));
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.updated());
+        assertEquals(2, result.rejected());
+        assertEquals(BatchItemResult.Status.CREATED, result.items().get(0).status());
+        assertEquals(1938, result.items().get(1).carBrand().foundedYear());
+        assertEquals(BatchItemResult.Status.REJECTED, result.items().get(2).status());
+        assertEquals(BatchItemResult.Status.REJECTED, result.items().get(3).status());
+
+        // Both valid items go out in one saveAll followed by a single flush
+        verify(carBrandRepository, times(1)).saveAll(argThat(entities -> ((List<?>) entities).size() == 2));
+        verify(carBrandRepository, times(1)).flushAndClear();
+        verify(carBrandRepository, never()).save(any(CarBrand.class));
+    }
+
+    @Test
+    void testSaveAllRejectsItemsChangedSinceRead() {
+        UUID uuid = UUID.randomUUID();
+        CarBrand existingCarBrand = createCarBrand(uuid);
+        existingCarBrand.setVersion(3L);
+        when(carBrandRepository.findAllByUuidIn(Set.of(uuid))).thenReturn(List.of(existingCarBrand));
+
+        BatchResult result = carBrandService.saveAll(List.of(new CarBrandDTO(uuid, "Toyota", "Japan", 1938, null, null, 2L)));
+
+        assertEquals(1, result.rejected());
+        assertEquals("Car brand " + uuid + " was changed since it was read", result.items().getFirst().error());
+        verify(carBrandRepository, times(1)).saveAll(argThat(entities -> ((List<?>) entities).isEmpty()));
+    }
+
+    @Test
+    void testSaveAllRejectsNameTakenByAnotherBrand() {
+        CarBrand otherCarBrand = createCarBrand(UUID.randomUUID());
+        when(carBrandRepository.findAllByNameIn(anyCollection())).thenReturn(List.of(otherCarBrand));
+
+        BatchResult result = carBrandService.saveAll(List.of(new CarBrandDTO(null, "Toyota", "Japan", 1937, null, null, 0L)));
+
+        assertEquals(1, result.rejected());
+        assertEquals("Name already in use: Toyota", result.items().getFirst().error());
+    }
+
+    @Test
+    void testSaveAllRejectsOversizedBatch() {
+        CarBrandProperties properties = new CarBrandProperties();
+        properties.getBatch().setMaxItems(1);
+        CarBrandServiceImpl limitedService = new CarBrandServiceImpl(carBrandRepository, countEstimator, carBrandCache,
+                changeNotifier, properties, searchIndex);
+        CarBrandDTO carBrandDTO = createCarBrandDTO(null);
+
+        assertThrows(BatchTooLargeException.class, () -> limitedService.saveAll(List.of(carBrandDTO, carBrandDTO)));
+    }
+
     @Test
     void testFindAll() {
-        CarBrand carBrandEntity = createCarBrand(UUID.randomUUID());
-        List<CarBrand> carBrands = Collections.singletonList(carBrandEntity);
+        CarBrandDTO carBrand = createCarBrandDTO(UUID.randomUUID());
+        List<CarBrandDTO> carBrands = Collections.singletonList(carBrand);
 
-        // Mocking the repository findAll behavior
-        when(carBrandRepository.findAll()).thenReturn(carBrands);
+        // Mocking the repository projection
+        when(carBrandRepository.findAllDtos()).thenReturn(carBrands);
 
         // Calling the findAll method
         List<CarBrandDTO> carBrandDTOs = carBrandService.findAll();
@@ -93,49 +202,232 @@ class CarBrandServiceImplTest {
         // Assertions
         assertNotNull(carBrandDTOs);
         assertEquals(1, carBrandDTOs.size());
-        assertEquals(carBrandEntity.getName(), carBrandDTOs.getFirst().name());
+        assertEquals(carBrand.name(), carBrandDTOs.getFirst().name());
+        verify(carBrandRepository, never()).findAll();
     }
 
     @Test
     void testFindAllPageable() {
-        CarBrand carBrandEntity = createCarBrand(UUID.randomUUID());
-        Page<CarBrand> carBrandPage = new PageImpl<>(Collections.singletonList(carBrandEntity));
-
-        // Mocking the repository findAll(Pageable) behavior
-        Pageable pageable = PageRequest.of(0, 10);
-        when(carBrandRepository.findAll(pageable)).thenReturn(carBrandPage);
+        CarBrandDTO carBrand = createCarBrandDTO(UUID.randomUUID());
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("name"));
+        when(carBrandRepository.findPage(CarBrandFilter.NONE, pageable.getSort(), 0, 10, CarBrandField.ALL)).thenReturn(List.of(carBrand));
 
         // Calling the findAll method with pagination
-        Page<CarBrandDTO> carBrandDTOs = carBrandService.findAll(pageable);
+        Page<CarBrandDTO> carBrandDTOs = carBrandService.findAll(pageable, CarBrandFilter.NONE, CarBrandField.ALL);
 
-        // Assertions
-        assertNotNull(carBrandDTOs);
-        assertEquals(1, carBrandDTOs.getContent().size());
-        assertEquals(carBrandEntity.getName(), carBrandDTOs.getContent().getFirst().name());
+        // Assertions: a short first page is the whole result, so nothing is counted
+        assertEquals(1, carBrandDTOs.getTotalElements());
+        assertEquals(carBrand.name(), carBrandDTOs.getContent().getFirst().name());
+        verify(carBrandRepository, never()).countMatching(any());
+    }
+
+    @Test
+    void testFindAllCountsMatchingRowsWhenPageIsFull() {
+        CarBrandFilter filter = new CarBrandFilter("Japan", null, null);
+        Pageable pageable = PageRequest.of(0, 1);
+        when(carBrandRepository.findPage(filter, Sort.unsorted(), 0, 1, CarBrandField.ALL)).thenReturn(List.of(createCarBrandDTO(UUID.randomUUID())));
+        when(carBrandRepository.countMatching(filter)).thenReturn(7L);
+
+        Page<CarBrandDTO> page = carBrandService.findAll(pageable, filter, CarBrandField.ALL);
+
+        assertEquals(7L, page.getTotalElements());
+    }
+
+    @Test
+    void testFindAllRejectsUnindexedSorts() {
+        CarBrandFilter country = new CarBrandFilter("Japan", null, null);
+
+        assertThrows(InvalidPageRequestException.class,
+                () -> carBrandService.findAll(PageRequest.of(0, 10, Sort.by("colour")), CarBrandFilter.NONE, CarBrandField.ALL));
+        assertThrows(InvalidPageRequestException.class,
+                () -> carBrandService.findAll(PageRequest.of(0, 10, Sort.by(Sort.Order.asc("name").ignoreCase())), CarBrandFilter.NONE,
+                        CarBrandField.ALL));
+        assertThrows(InvalidPageRequestException.class,
+                () -> carBrandService.findAll(PageRequest.of(0, 10, Sort.by("createdAt")), country, CarBrandField.ALL));
+        verifyNoInteractions(carBrandRepository);
+    }
+
+    @Test
+    void testFindAllRejectsSortsNoIndexServesWithTheFilter() {
+        CarBrandFilter country = new CarBrandFilter("Japan", null, null);
+        CarBrandFilter years = new CarBrandFilter(null, 1900, 1950);
+
+        List.of(
+                Pair.of(Sort.by("name", "foundedYear"), CarBrandFilter.NONE),
+                Pair.of(Sort.by("foundedYear", "name"), CarBrandFilter.NONE),
+                Pair.of(Sort.by(Sort.Order.asc("countryOfOrigin"), Sort.Order.desc("name")), CarBrandFilter.NONE),
+                Pair.of(Sort.by("id", "name"), CarBrandFilter.NONE),
+                Pair.of(Sort.by("name", "foundedYear"), country),
+                Pair.of(Sort.by("name"), years),
+                Pair.of(Sort.by("id"), years)
+        ).forEach(invalid -> assertThrows(InvalidPageRequestException.class,
+                () -> carBrandService.findAll(PageRequest.of(0, 10, invalid.getFirst()), invalid.getSecond(), CarBrandField.ALL),
+                invalid.toString()));
+        verifyNoInteractions(carBrandRepository);
+    }
+
+    @Test
+    void testFindAllAcceptsSortsAnIndexServes() {
+        CarBrandFilter country = new CarBrandFilter("Japan", 1900, 1950);
+        CarBrandFilter years = new CarBrandFilter(null, 1900, null);
+
+        List.of(
+                Pair.of(Sort.by("updatedAt"), CarBrandFilter.NONE),
+                Pair.of(Sort.by("countryOfOrigin", "name", "id"), CarBrandFilter.NONE),
+                Pair.of(Sort.by(Sort.Direction.DESC, "countryOfOrigin", "foundedYear"), CarBrandFilter.NONE),
+                Pair.of(Sort.by("countryOfOrigin", "name"), country),
+                Pair.of(Sort.by("foundedYear", "id"), country),
+                Pair.of(Sort.by("id"), country),
+                Pair.of(Sort.by("foundedYear"), years)
+        ).forEach(valid -> carBrandService.findAll(PageRequest.of(0, 10, valid.getFirst()), valid.getSecond(), CarBrandField.ALL));
+    }
+
+    @Test
+    void testFilterRejectsInvertedYearRange() {
+        assertThrows(InvalidPageRequestException.class, () -> new CarBrandFilter(null, 2000, 1990));
+    }
+
+    @Test
+    void testFindAllSlice() {
+        CarBrandDTO carBrand = createCarBrandDTO(UUID.randomUUID());
+        Pageable pageable = PageRequest.of(0, 1);
+        // One row more than the page size tells there is a next page
+        when(carBrandRepository.findPage(CarBrandFilter.NONE, Sort.unsorted(), 0, 2, CarBrandField.ALL))
+                .thenReturn(List.of(carBrand, createCarBrandDTO(UUID.randomUUID())));
+
+        Slice<CarBrandDTO> slice = carBrandService.findAllSlice(pageable, CarBrandFilter.NONE, CarBrandField.ALL);
+
+        assertEquals(List.of(carBrand), slice.getContent());
+        assertTrue(slice.hasNext());
+        verify(carBrandRepository, never()).countMatching(any());
+    }
+
+    @Test
+    void testFindAllEstimatedUsesEstimateWhenMoreRowsFollow() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(carBrandRepository.findPage(CarBrandFilter.NONE, Sort.unsorted(), 0, 2, CarBrandField.ALL))
+                .thenReturn(List.of(createCarBrandDTO(UUID.randomUUID()), createCarBrandDTO(UUID.randomUUID())));
+        when(countEstimator.estimate()).thenReturn(5000L);
+
+        Page<CarBrandDTO> page = carBrandService.findAllEstimated(pageable, CarBrandFilter.NONE, CarBrandField.ALL);
+
+        assertEquals(5000L, page.getTotalElements());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    void testFindAllEstimatedCountsFilteredTotals() {
+        CarBrandFilter filter = new CarBrandFilter(null, 1900, 1950);
+        Pageable pageable = PageRequest.of(0, 1);
+        // A year range is read in the order of its (founded_year, id) index
+        when(carBrandRepository.findPage(filter, Sort.by("foundedYear"), 0, 2, CarBrandField.ALL))
+                .thenReturn(List.of(createCarBrandDTO(UUID.randomUUID()), createCarBrandDTO(UUID.randomUUID())));
+        when(carBrandRepository.countMatching(filter)).thenReturn(12L);
+
+        Page<CarBrandDTO> page = carBrandService.findAllEstimated(pageable, filter, CarBrandField.ALL);
+
+        // Table statistics say nothing about a filter
+        assertEquals(12L, page.getTotalElements());
+        verifyNoInteractions(countEstimator);
+    }
+
+    @Test
+    void testFindAllEstimatedIsExactOnLastPage() {
+        Pageable pageable = PageRequest.of(2, 10);
+        when(carBrandRepository.findPage(CarBrandFilter.NONE, Sort.unsorted(), 20, 11, CarBrandField.ALL))
+                .thenReturn(List.of(createCarBrandDTO(UUID.randomUUID())));
+
+        Page<CarBrandDTO> page = carBrandService.findAllEstimated(pageable, CarBrandFilter.NONE, CarBrandField.ALL);
+
+        // A short final page pins the total, no estimate is needed
+        assertEquals(21L, page.getTotalElements());
+        assertFalse(page.hasNext());
+        verifyNoInteractions(countEstimator);
+    }
+
+    @Test
+    void testFindAllByCursorFirstPage() {
+        List<KeysetRow> rows = List.of(
+                new KeysetRow(1L, createCarBrandDTO(UUID.randomUUID())),
+                new KeysetRow(2L, createCarBrandDTO(UUID.randomUUID())),
+                new KeysetRow(3L, createCarBrandDTO(UUID.randomUUID())));
+
+        // The repository is asked for one row more than the page size to detect a next page
+        when(carBrandRepository.findKeyset(CarBrandSortField.ID, Sort.Direction.ASC, null, CarBrandFilter.NONE, 3, CarBrandField.ALL))
+                .thenReturn(rows);
+
+        KeysetPage<CarBrandDTO> page = carBrandService.findAllByCursor(PageRequest.of(0, 2), CarBrandFilter.NONE, null, null,
+                CarBrandField.ALL);
+
+        assertEquals(2, page.content().size());
+        assertTrue(page.hasNext());
+        assertFalse(page.hasPrevious());
+        assertEquals(2L, PageCursor.decode(page.nextCursor()).id());
+    }
+
+    @Test
+    void testFindAllByCursorBackward() {
+        PageCursor before = new PageCursor(CarBrandSortField.NAME, Sort.Direction.ASC, "Mazda", 10L);
+        CarBrandDTO kia = new CarBrandDTO(UUID.randomUUID(), "Kia", "South Korea", 1944, null, null, 0L);
+        CarBrandDTO lexus = new CarBrandDTO(UUID.randomUUID(), "Lexus", "Japan", 1989, null, null, 0L);
+
+        // Seeking backwards reads in reverse order, the service flips the rows back
+        when(carBrandRepository.findKeyset(CarBrandSortField.NAME, Sort.Direction.DESC, before, CarBrandFilter.NONE, 3, CarBrandField.ALL))
+                .thenReturn(List.of(new KeysetRow(8L, lexus), new KeysetRow(5L, kia)));
+
+        KeysetPage<CarBrandDTO> page = carBrandService.findAllByCursor(PageRequest.of(0, 2), CarBrandFilter.NONE, null, before,
+                CarBrandField.ALL);
+
+        assertEquals(List.of(kia, lexus), page.content());
+        assertFalse(page.hasPrevious());
+        assertTrue(page.hasNext());
+        assertEquals("Lexus", PageCursor.decode(page.nextCursor()).value());
+    }
+
+    @Test
+    void testFindAllByCursorRejectsUnsupportedSort() {
+        PageRequest pageable = PageRequest.of(0, 2, Sort.by("colour"));
+
+        assertThrows(InvalidPageRequestException.class, () -> carBrandService.findAllByCursor(pageable, CarBrandFilter.NONE, null, null,
+                CarBrandField.ALL));
     }
 
     @Test
     void testFindByUuid() {
         UUID uuid = UUID.randomUUID();
-        CarBrand carBrandEntity = createCarBrand(uuid);
+        CarBrandDTO carBrand = createCarBrandDTO(uuid);
 
-        // Mocking the repository findByUuid behavior
-        when(carBrandRepository.findByUuid(uuid)).thenReturn(Optional.of(carBrandEntity));
+        // Mocking the repository findDtoByUuid projection
+        when(carBrandRepository.findDtoByUuid(uuid)).thenReturn(Optional.of(carBrand));
 
         // Calling the findByUuid method
         Optional<CarBrandDTO> carBrandDTO = carBrandService.findByUuid(uuid);
 
         // Assertions
         assertTrue(carBrandDTO.isPresent());
-        assertEquals(carBrandEntity.getName(), carBrandDTO.get().name());
+        assertEquals(carBrand.name(), carBrandDTO.get().name());
+    }
+
+    @Test
+    void testFindByUuidIsServedFromCache() {
+        UUID uuid = UUID.randomUUID();
+        when(carBrandRepository.findDtoByUuid(uuid)).thenReturn(Optional.of(createCarBrandDTO(uuid)));
+
+        carBrandService.findByUuid(uuid);
+        Optional<CarBrandDTO> cached = carBrandService.findByUuid(uuid);
+
+        // Only the first lookup reaches the repository
+        assertTrue(cached.isPresent());
+        verify(carBrandRepository, times(1)).findDtoByUuid(uuid);
+        assertEquals(1, carBrandCache.stats().hitCount());
     }
 
     @Test
     void testFindByUuidNotFound() {
         UUID uuid = UUID.randomUUID();
 
-        // Mocking the repository findByUuid behavior for non-existent UUID
-        when(carBrandRepository.findByUuid(uuid)).thenReturn(Optional.empty());
+        // Mocking the repository findDtoByUuid behavior for non-existent UUID
+        when(carBrandRepository.findDtoByUuid(uuid)).thenReturn(Optional.empty());
 
         // Calling the findByUuid method
         Optional<CarBrandDTO> carBrandDTO = carBrandService.findByUuid(uuid);
@@ -147,42 +439,81 @@ class CarBrandServiceImplTest {
     @Test
     void testUpdate() {
         UUID uuid = UUID.randomUUID();
-        CarBrand existingCarBrand = createCarBrand(uuid);
-        CarBrandDTO updatedCarBrandDTO = new CarBrandDTO(
-                uuid,
-                "UpdatedBrand",
-                "UpdatedCountry",
-                2000,
-                existingCarBrand.getCreatedAt(),
-                existingCarBrand.getUpdatedAt()
-        );
+        CarBrandDTO updatedCarBrandDTO = new CarBrandDTO(uuid, "UpdatedBrand", "UpdatedCountry", 2000, null, null, 3L);
+        CarBrandDTO written = new CarBrandDTO(uuid, "UpdatedBrand", "UpdatedCountry", 2000,
+                LocalDateTime.now(), LocalDateTime.now(), 4L);
+        when(carBrandRepository.updateColumns(eq(uuid), anyMap(), eq(3L))).thenReturn(Optional.of(written));
 
-        // Mocking the repository findByUuid and save behavior
-        when(carBrandRepository.findByUuid(uuid)).thenReturn(Optional.of(existingCarBrand));
-        when(carBrandRepository.save(any(CarBrand.class))).thenReturn(existingCarBrand);
-
-        // Calling the update method
         CarBrandDTO updatedCarBrand = carBrandService.update(uuid, updatedCarBrandDTO);
 
-        // Assertions
-        assertNotNull(updatedCarBrand);
-        assertEquals(updatedCarBrandDTO.name(), updatedCarBrand.name());
-        assertEquals(updatedCarBrandDTO.countryOfOrigin(), updatedCarBrand.countryOfOrigin());
+        // One UPDATE ... RETURNING, no read before it and no entity involved
+        assertEquals(written, updatedCarBrand);
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("name", "UpdatedBrand");
+        columns.put("country_of_origin", "UpdatedCountry");
+        columns.put("founded_year", 2000);
+        verify(carBrandRepository).updateColumns(uuid, columns, 3L);
+        verify(carBrandRepository, never()).findDtoByUuid(uuid);
+        verify(carBrandRepository, never()).save(any(CarBrand.class));
+        verify(changeNotifier).publish(CarBrandChange.updated(uuid));
+    }
 
-        // Verify the interaction with the repository
-        verify(carBrandRepository, times(1)).save(any(CarBrand.class));
+    @Test
+    void testUpdateInvalidatesCachedCarBrand() {
+        UUID uuid = UUID.randomUUID();
+        when(carBrandRepository.findDtoByUuid(uuid)).thenReturn(Optional.of(createCarBrandDTO(uuid)));
+        when(carBrandRepository.updateColumns(eq(uuid), anyMap(), any())).thenReturn(Optional.of(createCarBrandDTO(uuid)));
+
+        carBrandService.findByUuid(uuid);
+        carBrandService.update(uuid, createCarBrandDTO(uuid));
+
+        assertTrue(carBrandCache.getIfPresent(uuid).isEmpty());
     }
 
     @Test
     void testUpdateCarBrandNotFound() {
         UUID uuid = UUID.randomUUID();
         CarBrandDTO updatedCarBrandDTO = createCarBrandDTO(uuid);
+        when(carBrandRepository.updateColumns(eq(uuid), anyMap(), any())).thenReturn(Optional.empty());
+        when(carBrandRepository.findVersionByUuid(uuid)).thenReturn(Optional.empty());
 
-        // Mocking the repository findByUuid behavior for non-existent car brand
-        when(carBrandRepository.findByUuid(uuid)).thenReturn(Optional.empty());
+        assertThrows(CarBrandNotFoundException.class, () -> carBrandService.update(uuid, updatedCarBrandDTO));
+        verifyNoInteractions(changeNotifier);
+    }
+
+    @Test
+    void testUpdateWithStaleVersionConflicts() {
+        UUID uuid = UUID.randomUUID();
+        CarBrandDTO updatedCarBrandDTO = createCarBrandDTO(uuid).withVersion(2L);
+        when(carBrandRepository.updateColumns(eq(uuid), anyMap(), eq(2L))).thenReturn(Optional.empty());
+        when(carBrandRepository.findVersionByUuid(uuid)).thenReturn(Optional.of(3L));
 
-        // Calling the update method and expecting an exception
-        assertThrows(IllegalArgumentException.class, () -> carBrandService.update(uuid, updatedCarBrandDTO));
+        assertThrows(VersionConflictException.class, () -> carBrandService.update(uuid, updatedCarBrandDTO));
+        verifyNoInteractions(changeNotifier);
+    }
+
+    @Test
+    void testPatchWritesOnlyPresentFields() {
+        UUID uuid = UUID.randomUUID();
+        when(carBrandRepository.updateColumns(eq(uuid), anyMap(), isNull())).thenReturn(Optional.of(createCarBrandDTO(uuid)));
+
+        carBrandService.patch(uuid, new CarBrandPatch(null, Optional.of("Japan"), Optional.empty(), null));
+
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("country_of_origin", "Japan");
+        columns.put("founded_year", null);
+        verify(carBrandRepository).updateColumns(uuid, columns, null);
+    }
+
+    @Test
+    void testPatchRejectsNullNameAndEmptyPatch() {
+        UUID uuid = UUID.randomUUID();
+
+        assertThrows(InvalidCarBrandException.class,
+                () -> carBrandService.patch(uuid, new CarBrandPatch(Optional.empty(), null, null, null)));
+        assertThrows(InvalidCarBrandException.class,
+                () -> carBrandService.patch(uuid, new CarBrandPatch(null, null, null, 1L)));
+        verify(carBrandRepository, never()).updateColumns(any(), anyMap(), any());
     }
 
     @Test
@@ -190,12 +521,138 @@ class CarBrandServiceImplTest {
         UUID uuid = UUID.randomUUID();
 
         // Mocking the repository deleteByUuid behavior
-        doNothing().when(carBrandRepository).deleteByUuid(uuid);
+        when(carBrandRepository.deleteByUuid(uuid)).thenReturn(1);
 
         // Calling the delete method
         carBrandService.deleteByUuid(uuid);
 
         // Verify the interaction with the repository
         verify(carBrandRepository, times(1)).deleteByUuid(uuid);
+        verify(carBrandRepository, never()).findDtoByUuid(uuid);
+        verify(changeNotifier).publish(CarBrandChange.deleted(uuid));
+    }
+
+    @Test
+    void testNarrowedFindByUuidReadsSelectedColumnsAndVersion() {
+        UUID uuid = UUID.randomUUID();
+        Set<CarBrandField> read = EnumSet.of(CarBrandField.NAME, CarBrandField.VERSION);
+        CarBrandDTO narrowed = new CarBrandDTO(null, "Toyota", null, null, null, null, 3L);
+        when(carBrandRepository.findFieldsByUuid(uuid, read)).thenReturn(Optional.of(narrowed));
+
+        Optional<CarBrandDTO> carBrandDTO = carBrandService.findByUuid(uuid, EnumSet.of(CarBrandField.NAME));
+
+        assertEquals(Optional.of(narrowed), carBrandDTO);
+        // A partial brand must not be served to a later full read
+        assertTrue(carBrandCache.getIfPresent(uuid).isEmpty());
+        verify(carBrandRepository, never()).findDtoByUuid(uuid);
+    }
+
+    @Test
+    void testNarrowedFindByUuidIsServedFromCache() {
+        UUID uuid = UUID.randomUUID();
+        when(carBrandRepository.findDtoByUuid(uuid)).thenReturn(Optional.of(createCarBrandDTO(uuid)));
+        carBrandService.findByUuid(uuid);
+
+        Optional<CarBrandDTO> carBrandDTO = carBrandService.findByUuid(uuid, EnumSet.of(CarBrandField.NAME));
+
+        assertTrue(carBrandDTO.isPresent());
+        verify(carBrandRepository, never()).findFieldsByUuid(any(), any());
+    }
+
+    @Test
+    void testFindAllByUuidReadsMissesInOneQueryAndKeepsOrder() {
+        UUID cached = UUID.randomUUID();
+        UUID stored = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        when(carBrandRepository.findDtoByUuid(cached)).thenReturn(Optional.of(createCarBrandDTO(cached)));
+        when(carBrandRepository.findAllDtosByUuid(Set.of(stored, missing))).thenReturn(List.of(createCarBrandDTO(stored)));
+        carBrandService.findByUuid(cached);
+
+        LookupResult result = carBrandService.findAllByUuid(List.of(stored, missing, cached, stored));
+
+        assertEquals(List.of(stored, cached), result.carBrands().stream().map(CarBrandDTO::uuid).toList());
+        assertEquals(List.of(missing), result.notFound());
+        // The cached brand is not read again, the others are read together
+        verify(carBrandRepository, times(1)).findAllDtosByUuid(anyCollection());
+        assertTrue(carBrandCache.getIfPresent(stored).isPresent());
+        assertTrue(carBrandCache.getIfPresent(missing).isEmpty());
+    }
+
+    @Test
+    void testFindAllByUuidRejectsOversizedLookup() {
+        CarBrandProperties properties = new CarBrandProperties();
+        properties.getBatch().setMaxLookupItems(1);
+        CarBrandServiceImpl limitedService = new CarBrandServiceImpl(carBrandRepository, countEstimator, carBrandCache,
+                changeNotifier, properties, searchIndex);
+
+        assertThrows(BatchTooLargeException.class,
+                () -> limitedService.findAllByUuid(List.of(UUID.randomUUID(), UUID.randomUUID())));
+        verifyNoInteractions(carBrandRepository);
+    }
+
+    @Test
+    void testDeleteByUuidNotFound() {
+        UUID uuid = UUID.randomUUID();
+        when(carBrandRepository.deleteByUuid(uuid)).thenReturn(0);
+
+        assertThrows(CarBrandNotFoundException.class, () -> carBrandService.deleteByUuid(uuid));
+        verifyNoInteractions(changeNotifier);
+    }
+
+    @Test
+    void testDeleteAllByUuidReportsUnmatchedUuids() {
+        UUID deleted = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        when(carBrandRepository.deleteAllByUuid(Set.of(deleted, missing))).thenReturn(List.of(deleted));
+
+        BatchDeleteResult result = carBrandService.deleteAllByUuid(List.of(deleted, missing, deleted));
+
+        assertEquals(1, result.deleted());
+        assertEquals(List.of(missing), result.notFound());
+        verify(changeNotifier).publishAll(List.of(CarBrandChange.deleted(deleted)));
+    }
+
+    @Test
+    void exportAll_ShouldStreamFromRepositoryWithConfiguredFetchSize() {
+        Consumer<CarBrandDTO> consumer = carBrandDTO -> { };
+
+        carBrandService.exportAll(CarBrandField.ALL, consumer);
+
+        verify(carBrandRepository).streamAll(new CarBrandProperties().getExport().getFetchSize(), CarBrandField.ALL, consumer);
+    }
+
+    @Test
+    void testSearchIsServedFromIndex() {
+        List<CarBrandSuggestion> suggestions = List.of(new CarBrandSuggestion(UUID.randomUUID(), "Toyota"));
+        when(searchIndex.search("toy", 10, 3)).thenReturn(Optional.of(suggestions));
+
+        assertEquals(suggestions, carBrandService.search("toy", 10));
+        verifyNoInteractions(carBrandRepository);
+    }
+
+    @Test
+    void testSearchFallsBackToDatabaseWhenIndexHasNothing() {
+        List<CarBrandSuggestion> suggestions = List.of(new CarBrandSuggestion(UUID.randomUUID(), "Mercedes-Benz"));
+        when(searchIndex.search(" Benz", 10, 3)).thenReturn(Optional.of(List.of()));
+        when(carBrandRepository.searchByName("benz", 10)).thenReturn(suggestions);
+
+        assertEquals(suggestions, carBrandService.search(" Benz", 10));
+    }
+
+    @Test
+    void testSearchFallsBackToDatabaseWhileIndexLoads() {
+        when(searchIndex.search("toy", 5, 3)).thenReturn(Optional.empty());
+
+        carBrandService.search("toy", 5);
+
+        verify(carBrandRepository).searchByName("toy", 5);
+    }
+
+    @Test
+    void testSearchRejectsBlankQueryAndOutOfRangeLimit() {
+        assertThrows(InvalidSearchQueryException.class, () -> carBrandService.search("  ", 10));
+        assertThrows(InvalidSearchQueryException.class, () -> carBrandService.search("toy", 0));
+        assertThrows(InvalidSearchQueryException.class, () -> carBrandService.search("toy", 51));
+        verifyNoInteractions(searchIndex);
     }
 }
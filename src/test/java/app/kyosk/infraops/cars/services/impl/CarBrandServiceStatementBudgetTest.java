@@ -0,0 +1,92 @@
+package app.kyosk.infraops.cars.services.impl;
+
+import app.kyosk.infraops.cars.TestPostgres;
+import app.kyosk.infraops.cars.dto.CarBrandDTO;
+import app.kyosk.infraops.cars.dto.CarBrandPatch;
+import app.kyosk.infraops.cars.exception.CarBrandNotFoundException;
+import app.kyosk.infraops.cars.exception.VersionConflictException;
+import app.kyosk.infraops.cars.jdbc.StatementCounter;
+import app.kyosk.infraops.cars.services.CarBrandService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the number of statements the single-brand writes cost against a real database. Each should
+ * be the write itself plus the change notification, with no SELECT in front of it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class CarBrandServiceStatementBudgetTest {
+
+    @DynamicPropertySource
+    static void dataSource(DynamicPropertyRegistry registry) {
+        TestPostgres.registerDataSource(registry);
+    }
+
+    @Autowired
+    private CarBrandService carBrandService;
+
+    private CarBrandDTO existing;
+
+    @BeforeEach
+    void setUp() {
+        existing = carBrandService.save(new CarBrandDTO(null, "Counted Motors " + UUID.randomUUID(), "Kenya", 2000,
+                null, null, null));
+    }
+
+    @Test
+    void update_IsOneUpdateAndOneNotify() {
+        try (StatementCounter.Scope scope = StatementCounter.open("update", 2, true)) {
+            CarBrandDTO updated = carBrandService.update(existing.uuid(), new CarBrandDTO(null, existing.name(),
+                    "Tanzania", 2001, null, null, existing.version()));
+
+            assertEquals("Tanzania", updated.countryOfOrigin());
+            assertEquals(2, scope.count());
+        }
+    }
+
+    @Test
+    void update_WithStaleVersion_LooksUpTheVersionOnlyAfterTheUpdateMissed() {
+        try (StatementCounter.Scope scope = StatementCounter.open("update", 2, true)) {
+            assertThrows(VersionConflictException.class, () -> carBrandService.update(existing.uuid(),
+                    new CarBrandDTO(null, existing.name(), "Tanzania", 2001, null, null, existing.version() + 1)));
+
+            assertEquals(2, scope.count());
+        }
+    }
+
+    @Test
+    void patch_IsOneUpdateAndOneNotify() {
+        try (StatementCounter.Scope scope = StatementCounter.open("patch", 2, true)) {
+            carBrandService.patch(existing.uuid(), new CarBrandPatch(null, null, Optional.of(1999), null));
+
+            assertEquals(2, scope.count());
+        }
+    }
+
+    @Test
+    void deleteByUuid_IsOneDeleteAndOneNotify() {
+        try (StatementCounter.Scope scope = StatementCounter.open("deleteByUuid", 2, true)) {
+            carBrandService.deleteByUuid(existing.uuid());
+
+            assertEquals(2, scope.count());
+        }
+    }
+
+    @Test
+    void deleteByUuid_WhenMissing_IsOneDelete() {
+        try (StatementCounter.Scope scope = StatementCounter.open("deleteByUuid", 1, true)) {
+            assertThrows(CarBrandNotFoundException.class, () -> carBrandService.deleteByUuid(UUID.randomUUID()));
+
+            assertEquals(1, scope.count());
+        }
+    }
+}
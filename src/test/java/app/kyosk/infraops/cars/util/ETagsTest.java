@@ -0,0 +1,51 @@
+package app.kyosk.infraops.cars.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    @Test
+    void testTagsAreQuoted() {
+        assertEquals("\"v1f\"", ETags.ofVersion(31));
+        assertEquals("W/\"r2a\"", ETags.ofRevision(42));
+    }
+
+    @Test
+    void testParseVersionReadsSingleStrongVersionTags() {
+        assertEquals(Optional.of(31L), ETags.parseVersion(" " + ETags.ofVersion(31) + " "));
+        assertEquals(Optional.empty(), ETags.parseVersion("W/" + ETags.ofVersion(31)));
+        assertEquals(Optional.empty(), ETags.parseVersion(ETags.ofVersion(31) + ", " + ETags.ofVersion(32)));
+        assertEquals(Optional.empty(), ETags.parseVersion(ETags.ofRevision(31)));
+        assertEquals(Optional.empty(), ETags.parseVersion("\"v\""));
+    }
+
+    @Test
+    void testMatchesListsAndWildcard() {
+        String eTag = ETags.ofVersion(7);
+
+        assertTrue(ETags.matches("\"other\", " + eTag, eTag, false));
+        assertTrue(ETags.matches("*", eTag, false));
+        assertFalse(ETags.matches("\"other\"", eTag, false));
+    }
+
+    @Test
+    void testWeakTagsOnlyMatchWeakComparison() {
+        String eTag = ETags.ofVersion(7);
+
+        assertTrue(ETags.matches("W/" + eTag, eTag, true));
+        assertFalse(ETags.matches("W/" + eTag, eTag, false));
+    }
+
+    @Test
+    void testRevisionTagsAreWeak() {
+        String eTag = ETags.ofRevision(7);
+
+        assertTrue(ETags.matches("\"r7\"", eTag, true));
+        assertTrue(ETags.matches(eTag, eTag, true));
+        assertFalse(ETags.matches(eTag, eTag, false));
+    }
+}
@@ -0,0 +1,50 @@
+package app.kyosk.infraops.cars.util;
+
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
+import app.kyosk.infraops.cars.repository.CarBrandSortField;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        PageCursor cursor = new PageCursor(CarBrandSortField.NAME, Sort.Direction.ASC, "Rolls|Royce", 42L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void testEncodeDecodeTypedAndNullValues() {
+        PageCursor dated = new PageCursor(CarBrandSortField.CREATED_AT, Sort.Direction.DESC,
+                LocalDateTime.of(2025, 1, 11, 10, 42, 0, 123000), 7L);
+        PageCursor withoutYear = new PageCursor(CarBrandSortField.FOUNDED_YEAR, Sort.Direction.ASC, null, 9L);
+
+        assertEquals(dated, PageCursor.decode(dated.encode()));
+        assertEquals(withoutYear, PageCursor.decode(withoutYear.encode()));
+    }
+
+    @Test
+    void testTokenIsUrlSafe() {
+        String token = new PageCursor(CarBrandSortField.NAME, Sort.Direction.ASC, "\u0160koda & Co?/", 1L).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testDecodeNullReturnsNull() {
+        assertNull(PageCursor.decode(null));
+    }
+
+    @Test
+    void testDecodeRejectsMalformedTokens() {
+        assertThrows(InvalidPageRequestException.class, () -> PageCursor.decode("not a cursor!"));
+        assertThrows(InvalidPageRequestException.class, () -> PageCursor.decode("bm9wZQ"));
+    }
+}
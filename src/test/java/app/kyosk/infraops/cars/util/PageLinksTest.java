@@ -1,5 +1,6 @@
 package app.kyosk.infraops.cars.util;
 
+import app.kyosk.infraops.cars.exception.InvalidPageRequestException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -7,11 +8,18 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 class PageLinksTest {
@@ -43,11 +51,11 @@ class PageLinksTest {
         PageLinks pageLinks = PageLinks.from(mockPage, BASE_URL);
 
         // Assertions
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getFirst());
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getSelf());
-        assertNull(pageLinks.getPrevious());  // Since there's no previous page
-        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.getNext());
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getLast());
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.first());
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.self());
+        assertNull(pageLinks.previous());  // Since there's no previous page
+        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.next());
+        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.last());
     }
 
     @Test
@@ -66,11 +74,11 @@ class PageLinksTest {
         PageLinks pageLinks = PageLinks.from(mockPage, BASE_URL);
 
         // Assertions
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getFirst());
-        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.getSelf());
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getPrevious());  // Previous page link
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getNext());
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getLast());
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.first());
+        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.self());
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.previous());  // Previous page link
+        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.next());
+        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.last());
     }
 
     @Test
@@ -89,11 +97,11 @@ class PageLinksTest {
         PageLinks pageLinks = PageLinks.from(mockPage, BASE_URL);
 
         // Assertions
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getFirst());
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getSelf());
-        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.getPrevious());
-        assertNull(pageLinks.getNext());  // No next page
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getLast());
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.first());
+        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.self());
+        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.previous());
+        assertNull(pageLinks.next());  // No next page
+        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.last());
     }
 
     @Test
@@ -108,12 +116,12 @@ class PageLinksTest {
         // Call the method
         PageLinks pageLinks = PageLinks.from(mockPage, urlWithParams);
 
-        // Assertions - verify that query params were removed
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getFirst());
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getSelf());
-        assertNull(pageLinks.getPrevious());
-        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.getNext());
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getLast());
+        // Assertions - verify that query params are carried into every link
+        assertEquals("http://example.com/cars?param=value&another=123&page=0&size=5", pageLinks.first());
+        assertEquals("http://example.com/cars?param=value&another=123&page=0&size=5", pageLinks.self());
+        assertNull(pageLinks.previous());
+        assertEquals("http://example.com/cars?param=value&another=123&page=1&size=5", pageLinks.next());
+        assertEquals("http://example.com/cars?param=value&another=123&page=2&size=5", pageLinks.last());
     }
 
     @Test
@@ -129,11 +137,11 @@ class PageLinksTest {
         PageLinks pageLinks = PageLinks.from(mockPage, urlWithSlash);
 
         // Assertions - verify that trailing slash was removed
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getFirst());
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getSelf());
-        assertNull(pageLinks.getPrevious());
-        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.getNext());
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getLast());
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.first());
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.self());
+        assertNull(pageLinks.previous());
+        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.next());
+        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.last());
     }
 
     @Test
@@ -148,11 +156,104 @@ class PageLinksTest {
         // Call the method
         PageLinks pageLinks = PageLinks.from(mockPage, complexUrl);
 
-        // Assertions - verify both issues were fixed
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getFirst());
-        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.getSelf());
-        assertNull(pageLinks.getPrevious());
-        assertEquals("http://example.com/cars?page=1&size=5", pageLinks.getNext());
-        assertEquals("http://example.com/cars?page=2&size=5", pageLinks.getLast());
+        // Assertions - verify the slash was removed and the query param kept
+        assertEquals("http://example.com/cars?param=value&page=0&size=5", pageLinks.first());
+        assertEquals("http://example.com/cars?param=value&page=0&size=5", pageLinks.self());
+        assertNull(pageLinks.previous());
+        assertEquals("http://example.com/cars?param=value&page=1&size=5", pageLinks.next());
+        assertEquals("http://example.com/cars?param=value&page=2&size=5", pageLinks.last());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFromKeysetPageUsesCursorLinks() {
+        KeysetPage<String> keysetPage = new KeysetPage<>(Arrays.asList("Car1", "Car2"), 2,
+                Sort.by(Sort.Order.asc("name")), "nextToken", "previousToken");
+        String requestUrl = "http://example.com/cars/?after=someToken&size=2";
+
+        PageLinks pageLinks = PageLinks.from(keysetPage, requestUrl);
+
+        assertEquals("http://example.com/cars?paging=cursor&size=2&sort=name,asc", pageLinks.first());
+        assertEquals(requestUrl, pageLinks.self());
+        assertEquals("http://example.com/cars?before=previousToken&size=2", pageLinks.previous());
+        assertEquals("http://example.com/cars?after=nextToken&size=2", pageLinks.next());
+        assertNull(pageLinks.last());
+    }
+
+    @Test
+    void testFromKeysetPageWithoutNeighbours() {
+        KeysetPage<String> keysetPage = new KeysetPage<>(Arrays.asList("Car1"), 5, Sort.unsorted(), null, null);
+
+        PageLinks pageLinks = PageLinks.from(keysetPage, BASE_URL);
+
+        assertEquals("http://example.com/cars?paging=cursor&size=5", pageLinks.first());
+        assertNull(pageLinks.previous());
+        assertNull(pageLinks.next());
+    }
+
+    @Test
+    void testFromSliceKeepsPagingModeAndHasNoLastLink() {
+        Slice<String> slice = new SliceImpl<>(Arrays.asList("Car6", "Car7"), PageRequest.of(1, 2), true);
+
+        PageLinks pageLinks = PageLinks.from(slice, BASE_URL);
+
+        assertEquals("http://example.com/cars?paging=slice&page=0&size=2", pageLinks.first());
+        assertEquals("http://example.com/cars?paging=slice&page=1&size=2", pageLinks.self());
+        assertEquals("http://example.com/cars?paging=slice&page=0&size=2", pageLinks.previous());
+        assertEquals("http://example.com/cars?paging=slice&page=2&size=2", pageLinks.next());
+        assertNull(pageLinks.last());
+    }
+
+    @Test
+    void testFromKeepsSortAndReplacesPagingParameters() {
+        Page<String> mockPage = new PageImpl<>(Arrays.asList("Car6", "Car7"), PageRequest.of(1, 2), 6);
+        String requestUrl = "http://example.com/cars?page=1&sort=name,desc&size=2";
+
+        PageLinks pageLinks = PageLinks.from(mockPage, requestUrl);
+
+        assertEquals("http://example.com/cars?sort=name,desc&page=0&size=2", pageLinks.first());
+        assertEquals("http://example.com/cars?sort=name,desc&page=1&size=2", pageLinks.self());
+        assertEquals("http://example.com/cars?sort=name,desc&page=2&size=2", pageLinks.last());
+    }
+
+    @Test
+    void testFromKeysetPageCarriesFiltersButNotSort() {
+        KeysetPage<String> keysetPage = new KeysetPage<>(Arrays.asList("Car1", "Car2"), 2,
+                Sort.by(Sort.Order.desc("name")), "nextToken", null);
+        String requestUrl = "http://example.com/cars?paging=cursor&sort=name,desc&links=next&size=2";
+
+        PageLinks pageLinks = PageLinks.from(keysetPage, requestUrl);
+
+        assertEquals("http://example.com/cars?paging=cursor&links=next&size=2&sort=name,desc", pageLinks.first());
+        assertEquals("http://example.com/cars?after=nextToken&links=next&size=2", pageLinks.next());
+    }
+
+    @Test
+    void testFromBuildsOnlyRequestedRelations() {
+        Page<String> mockPage = new PageImpl<>(Arrays.asList("Car6", "Car7"), PageRequest.of(1, 2), 6);
+
+        PageLinks pageLinks = PageLinks.from(mockPage, BASE_URL, PagingMode.OFFSET, EnumSet.of(LinkRelation.NEXT, LinkRelation.SELF));
+
+        assertNull(pageLinks.first());
+        assertNull(pageLinks.previous());
+        assertEquals("http://example.com/cars?page=1&size=2", pageLinks.self());
+        assertEquals("http://example.com/cars?page=2&size=2", pageLinks.next());
+        assertNull(pageLinks.last());
+    }
+
+    @Test
+    void testFromEmptyPageLinksLastToFirstPage() {
+        Page<String> emptyPage = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 5), 0);
+
+        PageLinks pageLinks = PageLinks.from(emptyPage, BASE_URL);
+
+        assertEquals("http://example.com/cars?page=0&size=5", pageLinks.last());
+    }
+
+    @Test
+    void testParseLinkRelations() {
+        assertEquals(LinkRelation.ALL, LinkRelation.parse(null));
+        assertEquals(EnumSet.of(LinkRelation.NEXT, LinkRelation.SELF), LinkRelation.parse("next, SELF"));
+        assertTrue(LinkRelation.parse("").isEmpty());
+        assertThrows(InvalidPageRequestException.class, () -> LinkRelation.parse("next,up"));
+    }
+}
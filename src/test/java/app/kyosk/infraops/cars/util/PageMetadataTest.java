@@ -4,6 +4,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 import java.util.Collections;
 
@@ -24,14 +27,14 @@ class PageMetadataTest {
 
         // Assertions
         assertNotNull(metadata);
-        assertEquals(1, metadata.getPageNumber());
-        assertEquals(5, metadata.getPageSize());
-        assertEquals(15, metadata.getTotalElements());
-        assertEquals(3, metadata.getTotalPages());
-        assertFalse(metadata.isFirst());
-        assertFalse(metadata.isLast());
-        assertTrue(metadata.isHasNext());
-        assertTrue(metadata.isHasPrevious());
+        assertEquals(1, metadata.pageNumber());
+        assertEquals(5, metadata.pageSize());
+        assertEquals(15, metadata.totalElements());
+        assertEquals(3, metadata.totalPages());
+        assertFalse(metadata.first());
+        assertFalse(metadata.last());
+        assertTrue(metadata.hasNext());
+        assertTrue(metadata.hasPrevious());
     }
 
     @Test
@@ -47,10 +50,10 @@ class PageMetadataTest {
 
         // Assertions
         assertNotNull(metadata);
-        assertTrue(metadata.isFirst());
-        assertFalse(metadata.isLast());
-        assertTrue(metadata.isHasNext());
-        assertFalse(metadata.isHasPrevious());
+        assertTrue(metadata.first());
+        assertFalse(metadata.last());
+        assertTrue(metadata.hasNext());
+        assertFalse(metadata.hasPrevious());
     }
 
     @Test
@@ -66,10 +69,10 @@ class PageMetadataTest {
 
         // Assertions
         assertNotNull(metadata);
-        assertFalse(metadata.isFirst());
-        assertTrue(metadata.isLast());
-        assertFalse(metadata.isHasNext());
-        assertTrue(metadata.isHasPrevious());
+        assertFalse(metadata.first());
+        assertTrue(metadata.last());
+        assertFalse(metadata.hasNext());
+        assertTrue(metadata.hasPrevious());
     }
 
     @Test
@@ -85,13 +88,52 @@ class PageMetadataTest {
 
         // Assertions
         assertNotNull(metadata);
-        assertEquals(0, metadata.getPageNumber());
-        assertEquals(5, metadata.getPageSize());
-        assertEquals(0, metadata.getTotalElements());
-        assertEquals(0, metadata.getTotalPages());
-        assertTrue(metadata.isFirst());
-        assertTrue(metadata.isLast());
-        assertFalse(metadata.isHasNext());
-        assertFalse(metadata.isHasPrevious());
+        assertEquals(0, metadata.pageNumber());
+        assertEquals(5, metadata.pageSize());
+        assertEquals(0, metadata.totalElements());
+        assertEquals(0, metadata.totalPages());
+        assertTrue(metadata.first());
+        assertTrue(metadata.last());
+        assertFalse(metadata.hasNext());
+        assertFalse(metadata.hasPrevious());
+    }
+
+    @Test
+    void testFromKeysetPage() {
+        KeysetPage<String> page = new KeysetPage<>(Collections.singletonList("Car"), 5, Sort.unsorted(), "next", null);
+
+        PageMetadata metadata = PageMetadata.from(page);
+
+        assertNull(metadata.pageNumber());
+        assertEquals(5, metadata.pageSize());
+        assertNull(metadata.totalElements());
+        assertNull(metadata.totalPages());
+        assertTrue(metadata.first());
+        assertFalse(metadata.last());
+        assertTrue(metadata.hasNext());
+        assertFalse(metadata.hasPrevious());
+    }
+
+    @Test
+    void testFromSlice() {
+        PageRequest pageRequest = PageRequest.of(1, 5);
+        Slice<String> slice = new SliceImpl<>(Collections.singletonList("Car"), pageRequest, true);
+
+        PageMetadata metadata = PageMetadata.from(slice);
+
+        assertEquals(1, metadata.pageNumber());
+        assertNull(metadata.totalElements());
+        assertNull(metadata.totalPages());
+        assertEquals(TotalKind.ABSENT, metadata.totalKind());
+        assertTrue(metadata.hasNext());
+        assertTrue(metadata.hasPrevious());
+    }
+
+    @Test
+    void testFromEstimatedPage() {
+        Page<String> page = new PageImpl<>(Collections.singletonList("Car"), PageRequest.of(0, 5), 1000);
+
+        assertEquals(TotalKind.EXACT, PageMetadata.from(page).totalKind());
+        assertEquals(TotalKind.ESTIMATED, PageMetadata.from(page, TotalKind.ESTIMATED).totalKind());
     }
 }